@@ -0,0 +1,113 @@
+package com.example.demo.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+//Compares a JMH JSON result with the checked-in baseline (src/jmh/baseline.json) and exits with 1 when a benchmark
+//got slower than its baseline score by more than the tolerance (jmh.tolerance, 0.5 = 50%). Benchmarks without a baseline are reported
+//but do not fail. With "update" the baseline is rewritten from the result instead.
+//mvn -Pjmh verify runs the benchmarks and then this check, which is how CI invokes it.
+//mvn -Pjmh verify -Djmh.baseline.args=update
+//The scores depend on the machine, so the baseline should be regenerated on the machine that checks against it.
+public class BenchmarkBaseline {
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 3) {
+            System.err.println("Usage: BenchmarkBaseline <jmh-result.json> <baseline.json> <tolerance> [update]");
+            System.exit(2);
+        }
+        File resultFile = new File(args[0]);
+        File baselineFile = new File(args[1]);
+        double tolerance = Double.parseDouble(args[2]);
+        boolean update = args.length > 3 && "update".equals(args[3]);
+
+        Map<String, Score> results = readScores(resultFile);
+        if (update) {
+            writeBaseline(baselineFile, results);
+            System.out.printf("Baseline %s updated with %d benchmarks%n", baselineFile, results.size());
+            return;
+        }
+
+        Map<String, Score> baseline = baselineFile.exists() ? readScores(baselineFile) : Map.of();
+        List<String> regressions = new ArrayList<>();
+        results.forEach((name, score) -> {
+            Score expected = baseline.get(name);
+            if (expected == null) {
+                System.out.printf("NEW        %-90s %12.3f %s%n", name, score.value(), score.unit());
+                return;
+            }
+            if (!expected.unit().equals(score.unit())) {
+                regressions.add(name + ": unit changed from " + expected.unit() + " to " + score.unit());
+                return;
+            }
+            double change = (score.value() - expected.value()) / expected.value();
+            boolean regressed = change > tolerance;
+            System.out.printf("%-10s %-90s %12.3f %s (baseline %.3f, %+.1f%%)%n", regressed ? "REGRESSED" : "OK",
+                    name, score.value(), score.unit(), expected.value(), change * 100);
+            if (regressed) {
+                regressions.add("%s: %.3f %s is %.1f%% slower than the baseline %.3f".formatted(name, score.value(),
+                        score.unit(), change * 100, expected.value()));
+            }
+        });
+
+        if (!regressions.isEmpty()) {
+            System.err.println(regressions.size() + " benchmark(s) regressed by more than " + tolerance * 100 + "%:");
+            regressions.forEach(regression -> System.err.println("  " + regression));
+            System.exit(1);
+        }
+    }
+
+    //benchmark name plus its params, e.g. "...PricingServiceBenchmark.calculateTotalPrice{engine=FIXED_POINT, roomTypes=1}".
+    //Every benchmark of this module runs in AverageTime mode, so a higher score is always worse.
+    private static Map<String, Score> readScores(File file) throws IOException {
+        Map<String, Score> scores = new TreeMap<>();
+        for (JsonNode run : objectMapper.readTree(file)) {
+            Map<String, String> params = new TreeMap<>();
+            JsonNode paramsNode = run.path("params");
+            for (Iterator<Map.Entry<String, JsonNode>> it = paramsNode.fields(); it.hasNext(); ) {
+                Map.Entry<String, JsonNode> param = it.next();
+                params.put(param.getKey(), param.getValue().asText());
+            }
+            String name = run.get("benchmark").asText() + (params.isEmpty() ? "" : params.toString());
+            JsonNode metric = run.get("primaryMetric");
+            scores.put(name, new Score(metric.get("score").asDouble(), metric.get("scoreUnit").asText()));
+        }
+        return scores;
+    }
+
+    //written in the JMH result layout, so a result file can also be copied over the baseline as is.
+    private static void writeBaseline(File baselineFile, Map<String, Score> results) throws IOException {
+        ArrayNode runs = objectMapper.createArrayNode();
+        results.forEach((name, score) -> {
+            ObjectNode run = runs.addObject();
+            int paramsStart = name.indexOf('{');
+            run.put("benchmark", paramsStart < 0 ? name : name.substring(0, paramsStart));
+            if (paramsStart >= 0) {
+                ObjectNode params = run.putObject("params");
+                for (String param : name.substring(paramsStart + 1, name.length() - 1).split(", ")) {
+                    String[] keyValue = param.split("=", 2);
+                    params.put(keyValue[0], keyValue[1]);
+                }
+            }
+            ObjectNode metric = run.putObject("primaryMetric");
+            metric.put("score", Math.round(score.value() * 1000) / 1000.0);
+            metric.put("scoreUnit", score.unit());
+        });
+        objectMapper.writerWithDefaultPrettyPrinter().writeValue(baselineFile, runs);
+    }
+
+    private record Score(double value, String unit) {
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.demo.benchmark;
+
+import com.example.demo.config.MapperConfig;
+import com.example.demo.dto.BookingDto;
+import com.example.demo.dto.HotelDto;
+import com.example.demo.dto.RoomDto;
+import com.example.demo.entity.Booking;
+import com.example.demo.entity.Hotel;
+import com.example.demo.entity.Room;
+import org.modelmapper.ModelMapper;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+//ModelMapper mapping of the DTOs on the search and booking paths: a page of hotels, the room types of a hotel and
+//a booking.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DtoMappingBenchmark {
+
+    private static final int PAGE_SIZE = 20;
+
+    private ModelMapper modelMapper;
+    private List<Hotel> hotels;
+    private List<Room> rooms;
+    private Booking booking;
+
+    @Setup
+    public void setUp() {
+        modelMapper = new MapperConfig().modelMapper();
+        InventoryGenerator generator = new InventoryGenerator(4);
+        hotels = new ArrayList<>();
+        for (int i = 0; i < PAGE_SIZE; i++) {
+            hotels.add(generator.hotel());
+        }
+        rooms = generator.rooms(hotels.get(0), 10);
+        booking = generator.booking(hotels.get(0), rooms.get(0), 5);
+    }
+
+    @Benchmark
+    public List<HotelDto> hotelPage() {
+        return hotels.stream().map(hotel -> modelMapper.map(hotel, HotelDto.class)).toList();
+    }
+
+    @Benchmark
+    public List<RoomDto> hotelRooms() {
+        return rooms.stream().map(room -> modelMapper.map(room, RoomDto.class)).toList();
+    }
+
+    @Benchmark
+    public BookingDto booking() {
+        return modelMapper.map(booking, BookingDto.class);
+    }
+}
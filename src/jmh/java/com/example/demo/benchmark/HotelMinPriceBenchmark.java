@@ -0,0 +1,36 @@
+package com.example.demo.benchmark;
+
+import com.example.demo.dto.DailyMinPriceDto;
+import com.example.demo.entity.Inventory;
+import com.example.demo.services.HotelMinPriceService;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+//The in-memory part of HotelMinPriceService.updateHotelMinPrice: grouping a hotel's year of inventory by day into
+//the daily min price and free rooms that are then upserted.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class HotelMinPriceBenchmark {
+
+    @Param({"1", "50"})
+    private int roomTypes;
+
+    private List<Inventory> inventoryList;
+
+    @Setup
+    public void setUp() {
+        InventoryGenerator generator = new InventoryGenerator(3);
+        inventoryList = generator.inventory(generator.rooms(generator.hotel(), roomTypes), 366);
+    }
+
+    @Benchmark
+    public List<DailyMinPriceDto> dailyMinPrices() {
+        return HotelMinPriceService.toDailyMinPrices(inventoryList);
+    }
+}
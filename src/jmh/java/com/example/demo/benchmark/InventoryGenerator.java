@@ -0,0 +1,123 @@
+package com.example.demo.benchmark;
+
+import com.example.demo.entity.Booking;
+import com.example.demo.entity.Hotel;
+import com.example.demo.entity.HotelContactInfo;
+import com.example.demo.entity.Inventory;
+import com.example.demo.entity.Room;
+import com.example.demo.entity.enums.BookingStatus;
+import com.example.demo.strategy.*;
+import org.springframework.core.env.StandardEnvironment;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+
+//Synthetic, reproducible hotels, room types, inventory and bookings for the benchmarks. Everything is drawn from a
+//seeded Random, so every run prices exactly the same rows.
+final class InventoryGenerator {
+
+    static final String CITY = "Benchmark city";
+    static final int TOTAL_COUNT = 20;
+
+    private final Random random;
+    private long nextId = 1;
+
+    InventoryGenerator(long seed) {
+        this.random = new Random(seed);
+    }
+
+    //the pricing pipeline with the default strategies; every 30th day from today is a holiday.
+    static PricingStrategyRegistry pricingStrategyRegistry() {
+        LocalDate today = LocalDate.now();
+        HolidayCalendar holidayCalendar = (city, date) -> date.toEpochDay() % 30 == today.toEpochDay() % 30;
+        return new PricingStrategyRegistry(
+                List.of(new BasePricingStrategy(), new SurgePricingStrategy(), new OccupancyPricingStrategy(),
+                        new UrgencyPricingStrategy(), new HolidayPricingStrategy(holidayCalendar)),
+                new StandardEnvironment(), List.of("base", "surge", "occupancy", "urgency", "holiday"));
+    }
+
+    Hotel hotel() {
+        Hotel hotel = new Hotel();
+        hotel.setId(nextId++);
+        hotel.setName("Hotel " + hotel.getId());
+        hotel.setCity(CITY);
+        hotel.setActive(true);
+        hotel.setPhotos(new String[]{"https://example.com/a.jpg", "https://example.com/b.jpg"});
+        hotel.setAmenities(new String[]{"wifi", "pool", "parking"});
+        HotelContactInfo contactInfo = new HotelContactInfo();
+        contactInfo.setAddress("1 Benchmark road");
+        contactInfo.setPhoneNumber("+91 00000 00000");
+        contactInfo.setEmail("hotel@example.com");
+        contactInfo.setLocation("0,0");
+        hotel.setContactInfo(contactInfo);
+        hotel.setCreatedAt(LocalDateTime.now());
+        hotel.setUpdatedAt(LocalDateTime.now());
+        hotel.setRooms(new ArrayList<>());
+        return hotel;
+    }
+
+    //base prices between 1,000.00 and 21,000.00 with paise.
+    List<Room> rooms(Hotel hotel, int roomTypes) {
+        for (int i = 0; i < roomTypes; i++) {
+            Room room = new Room();
+            room.setId(nextId++);
+            room.setHotel(hotel);
+            room.setType("type-" + i);
+            room.setBasePrice(BigDecimal.valueOf(100_000 + random.nextInt(2_000_000), 2));
+            room.setTotalCount(TOTAL_COUNT);
+            room.setCapacity(1 + random.nextInt(4));
+            room.setPhotos(new String[]{"https://example.com/room.jpg"});
+            room.setAmenities(new String[]{"tv", "ac"});
+            hotel.getRooms().add(room);
+        }
+        return hotel.getRooms();
+    }
+
+    //one row per room type and day from today on, with random occupancy, surge factors between 0.80 and 1.39,
+    //the price the pricing job would have stored and one day in twenty closed.
+    List<Inventory> inventory(List<Room> rooms, int days) {
+        List<Inventory> inventoryList = new ArrayList<>(rooms.size() * days);
+        LocalDate today = LocalDate.now();
+        for (Room room : rooms) {
+            for (int d = 0; d < days; d++) {
+                BigDecimal surgeFactor = BigDecimal.valueOf(80 + random.nextInt(60), 2);
+                inventoryList.add(Inventory.builder()
+                        .id(nextId++)
+                        .hotel(room.getHotel())
+                        .room(room)
+                        .city(CITY)
+                        .date(today.plusDays(d))
+                        .bookedCount(random.nextInt(TOTAL_COUNT + 1))
+                        .reservedCount(random.nextInt(3))
+                        .totalCount(TOTAL_COUNT)
+                        .surgeFactor(surgeFactor)
+                        .price(room.getBasePrice().multiply(surgeFactor))
+                        .closed(random.nextInt(20) == 0)
+                        .build());
+            }
+        }
+        return inventoryList;
+    }
+
+    Booking booking(Hotel hotel, Room room, int nights) {
+        LocalDate checkIn = LocalDate.now().plusDays(random.nextInt(300));
+        return Booking.builder()
+                .id(nextId++)
+                .hotel(hotel)
+                .room(room)
+                .roomsCount(1 + random.nextInt(3))
+                .checkInDate(checkIn)
+                .checkOutDate(checkIn.plusDays(nights - 1))
+                .createdAt(LocalDateTime.now())
+                .updatedAt(LocalDateTime.now())
+                .bookingStatus(BookingStatus.CONFIRMED)
+                .guests(new HashSet<>())
+                .amount(BigDecimal.valueOf(random.nextInt(10_000_000), 2))
+                .build();
+    }
+}
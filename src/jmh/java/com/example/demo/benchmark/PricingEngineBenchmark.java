@@ -0,0 +1,53 @@
+package com.example.demo.benchmark;
+
+import com.example.demo.entity.Inventory;
+import com.example.demo.strategy.PricingPipeline;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+//Prices one hotel's pricing run (roomTypes x 366 inventory rows) with both pricing engines.
+//mvn -Pjmh test-compile exec:exec -Djmh.args="PricingEngineBenchmark -prof gc"
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PricingEngineBenchmark {
+
+    @Param({"1", "30"})
+    private int roomTypes;
+
+    private PricingPipeline pipeline;
+    private List<Inventory> inventoryList;
+
+    @Setup
+    public void setUp() {
+        pipeline = InventoryGenerator.pricingStrategyRegistry().getPipeline();
+        InventoryGenerator generator = new InventoryGenerator(1);
+        inventoryList = generator.inventory(generator.rooms(generator.hotel(), roomTypes), 366);
+    }
+
+    @Benchmark
+    public List<BigDecimal> bigDecimalEngine() {
+        return pipeline.price(inventoryList);
+    }
+
+    @Benchmark
+    public List<BigDecimal> fixedPointEngine() {
+        return pipeline.priceInFixedPoint(inventoryList);
+    }
+
+    @Benchmark
+    public BigDecimal bigDecimalTotal() {
+        return pipeline.totalPrice(inventoryList);
+    }
+
+    @Benchmark
+    public BigDecimal fixedPointTotal() {
+        return pipeline.totalPriceInFixedPoint(inventoryList);
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.demo.benchmark;
+
+import com.example.demo.entity.Inventory;
+import com.example.demo.strategy.PricingEngine;
+import com.example.demo.strategy.PricingService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+//PricingService as the hourly pricing job (a year of every room type of a hotel) and the booking path
+//(the total of a 5 night stay in one room type) call it.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PricingServiceBenchmark {
+
+    @Param({"1", "50"})
+    private int roomTypes;
+
+    @Param({"BIG_DECIMAL", "FIXED_POINT"})
+    private PricingEngine engine;
+
+    private PricingService pricingService;
+    private List<Inventory> hotelInventory;
+    private List<Inventory> stayInventory;
+
+    @Setup
+    public void setUp() {
+        pricingService = new PricingService(InventoryGenerator.pricingStrategyRegistry());
+        ReflectionTestUtils.setField(pricingService, "pricingEngine", engine);
+
+        InventoryGenerator generator = new InventoryGenerator(2);
+        hotelInventory = generator.inventory(generator.rooms(generator.hotel(), roomTypes), 366);
+        stayInventory = hotelInventory.subList(10, 15);
+    }
+
+    @Benchmark
+    public List<BigDecimal> calculateDynamicPricing() {
+        return pricingService.calculateDynamicPricing(hotelInventory);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public BigDecimal calculateTotalPrice() {
+        return pricingService.calculateTotalPrice(stayInventory);
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.demo.config;
+
+import com.example.demo.entity.enums.BookingStatus;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+//Hibernate creates a check constraint with the booking statuses when it creates a status column but never updates
+//it, so a status added later could not be stored. A constraint whose statuses differ from the enum is recreated here,
+//before the EntityManagerFactory is built (see JpaConfig), so no booking is written while it is outdated.
+//Nodes starting together take turns through an advisory lock, and a node that finds the constraint current does
+//nothing. The new constraint is added NOT VALID and validated afterwards, so the table is only locked exclusively
+//for the swap and not while the existing rows are checked.
+@Component
+@Slf4j
+public class BookingStatusConstraintInitializer implements InitializingBean {
+
+    private static final long CONSTRAINT_LOCK_KEY = 0x626f6f6b696e67L;
+    private static final Pattern QUOTED_VALUE = Pattern.compile("'([^']*)'");
+
+    //status column -> name Postgres gave the check constraint Hibernate declared for it.
+    private static final Map<String, String> CONSTRAINTS = Map.of(
+            "booking_status", "booking_booking_status_check",
+            "status_before_payment", "booking_status_before_payment_check");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    //JPA's transaction manager does not exist yet, the changes run in plain JDBC transactions.
+    public BookingStatusConstraintInitializer(DataSource dataSource) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        Set<String> statuses = Arrays.stream(BookingStatus.values()).map(Enum::name)
+                .collect(Collectors.toCollection(TreeSet::new));
+        CONSTRAINTS.forEach((column, constraint) -> {
+            Boolean replaced = transactionTemplate.execute(status -> replaceIfOutdated(column, constraint, statuses));
+            if (Boolean.TRUE.equals(replaced)) {
+                jdbcTemplate.execute("ALTER TABLE booking VALIDATE CONSTRAINT " + constraint);
+                log.info("Booking status constraint {} recreated with {}", constraint, statuses);
+            }
+        });
+    }
+
+    private boolean replaceIfOutdated(String column, String constraint, Set<String> statuses) {
+        jdbcTemplate.execute("SELECT pg_advisory_xact_lock(" + CONSTRAINT_LOCK_KEY + ")");
+        Integer columns = jdbcTemplate.queryForObject("""
+                SELECT COUNT(*) FROM information_schema.columns
+                WHERE table_schema = current_schema() AND table_name = 'booking' AND column_name = ?
+                """, Integer.class, column);
+        if (columns == null || columns == 0) {
+            // a new database or column, Hibernate creates it with the current statuses.
+            return false;
+        }
+
+        List<String> definitions = jdbcTemplate.queryForList("""
+                SELECT pg_get_constraintdef(oid) FROM pg_constraint
+                WHERE conrelid = 'booking'::regclass AND conname = ?
+                """, String.class, constraint);
+        if (!definitions.isEmpty() && statuses.equals(quotedValues(definitions.get(0)))) {
+            return false;
+        }
+
+        String values = statuses.stream().map(status -> "'" + status + "'").collect(Collectors.joining(", "));
+        jdbcTemplate.execute("ALTER TABLE booking DROP CONSTRAINT IF EXISTS " + constraint);
+        jdbcTemplate.execute("ALTER TABLE booking ADD CONSTRAINT " + constraint + " CHECK (" + column + " IN (" + values
+                + ")) NOT VALID");
+        return true;
+    }
+
+    private static Set<String> quotedValues(String definition) {
+        Set<String> values = new TreeSet<>();
+        Matcher matcher = QUOTED_VALUE.matcher(definition);
+        while (matcher.find()) {
+            values.add(matcher.group(1));
+        }
+        return values;
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.demo.config;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+//unique_holiday_city_date does not cover holidays of every city: their city is NULL and Postgres treats NULLs as
+//distinct. A partial unique index on the date of those rows closes the gap; JPA cannot declare partial indexes.
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class HolidayIndexInitializer implements ApplicationRunner {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        try {
+            jdbcTemplate.execute("CREATE UNIQUE INDEX IF NOT EXISTS unique_holiday_all_cities_date ON holiday (date) WHERE city IS NULL");
+            log.info("Holiday indexes in place");
+        } catch (DataAccessException e) {
+            // existing duplicates have to be removed by hand, the application works without the index.
+            log.error("Could not create the unique index on the holidays of every city, remove duplicate dates first", e);
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.example.demo.config;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+//Inventory, HotelMinPrice and Booking used to get their ids from IDENTITY columns. Their sequences are created here
+//and moved past the largest existing id, so rows inserted before the switch never collide with new ones.
+//It runs before the EntityManagerFactory is built (see JpaConfig), so nothing can take an id from a sequence that has
+//not been moved yet. On a new database the tables do not exist yet and the sequences simply start at 1.
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class IdSequenceInitializer implements InitializingBean {
+
+    private static final Map<String, String> SEQUENCES = Map.of(
+            "inventory", "inventory_seq",
+            "hotel_min_price", "hotel_min_price_seq",
+            "booking", "booking_seq");
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void afterPropertiesSet() {
+        SEQUENCES.forEach((table, sequence) -> {
+            jdbcTemplate.execute("CREATE SEQUENCE IF NOT EXISTS " + sequence + " START WITH 1 INCREMENT BY 50");
+            if (jdbcTemplate.queryForObject("SELECT to_regclass(?) IS NOT NULL", Boolean.class, table) != Boolean.TRUE) {
+                return;
+            }
+            Long value = jdbcTemplate.queryForObject(
+                    "SELECT setval('" + sequence + "', GREATEST((SELECT COALESCE(MAX(id), 0) FROM " + table + ") + 50, " +
+                            "(SELECT last_value FROM " + sequence + ")))", Long.class);
+            log.info("Sequence {} aligned with table {} at {}", sequence, table, value);
+        });
+    }
+}
@@ -0,0 +1,25 @@
+package com.example.demo.config;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+//Indexes JPA cannot declare. Created once the application has started, after the inventory table may have been
+//converted into a partitioned table, so the index is created on the parent and inherited by every partition.
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class InventoryIndexInitializer implements ApplicationRunner {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        // partial index, only the few rows waiting for the pricing job are in it.
+        jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS idx_inventory_price_dirty ON inventory (hotel_id, date) WHERE price_dirty");
+        log.info("Inventory indexes in place");
+    }
+}
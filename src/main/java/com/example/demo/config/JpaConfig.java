@@ -0,0 +1,39 @@
+package com.example.demo.config;
+
+import org.springframework.boot.autoconfigure.orm.jpa.EntityManagerFactoryDependsOnPostProcessor;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class JpaConfig {
+
+    //Schema changes the entities rely on are made before Hibernate starts, so no request or scheduled job can write
+    //an entity before they are in place.
+    @Bean
+    public static EntityManagerFactoryDependsOnPostProcessor schemaInitializersBeforeJpa() {
+        return new EntityManagerFactoryDependsOnPostProcessor(IdSequenceInitializer.class,
+                BookingStatusConstraintInitializer.class) {
+        };
+    }
+
+    //saveAll on Inventory, HotelMinPrice and Booking is sent to the database in JDBC batches instead of one
+    //statement per row. This only works for entities whose ids come from a sequence, not from an IDENTITY column.
+    @Bean
+    public HibernatePropertiesCustomizer batchingCustomizer() {
+        return hibernateProperties -> {
+            hibernateProperties.putIfAbsent("hibernate.jdbc.batch_size", 50);
+            hibernateProperties.putIfAbsent("hibernate.order_inserts", true);
+            hibernateProperties.putIfAbsent("hibernate.order_updates", true);
+        };
+    }
+
+    //With open-in-view the entity manager lives as long as the request and by default keeps the connection it got
+    //for its first transaction until then. Handing the connection back after every transaction lets a request that
+    //calls a remote service between two transactions (payment initiation) do so without holding a connection.
+    @Bean
+    public HibernatePropertiesCustomizer connectionReleaseCustomizer() {
+        return hibernateProperties -> hibernateProperties.putIfAbsent("hibernate.connection.handling_mode",
+                "DELAYED_ACQUISITION_AND_RELEASE_AFTER_TRANSACTION");
+    }
+}
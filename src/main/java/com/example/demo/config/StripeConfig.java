@@ -4,10 +4,23 @@ import com.stripe.Stripe;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
 
+//Every Stripe call is made on a request thread, so it gets short timeouts instead of the library's 80 second read
+//timeout and its automatic retries. stripe.api-base points the client at another server, e.g. FakeStripeServer of
+//the tests for load tests without network.
 @Configuration
 public class StripeConfig {
 
-    public StripeConfig(@Value("${stripe.secret.key}") String stripeSecretKey) {
+    public StripeConfig(@Value("${stripe.secret.key}") String stripeSecretKey,
+                        @Value("${stripe.api-base:}") String apiBase,
+                        @Value("${stripe.connect-timeout-ms:2000}") int connectTimeoutMillis,
+                        @Value("${stripe.read-timeout-ms:10000}") int readTimeoutMillis,
+                        @Value("${stripe.max-network-retries:0}") int maxNetworkRetries) {
         Stripe.apiKey = stripeSecretKey;
+        if (!apiBase.isBlank()) {
+            Stripe.overrideApiBase(apiBase);
+        }
+        Stripe.setConnectTimeout(connectTimeoutMillis);
+        Stripe.setReadTimeout(readTimeoutMillis);
+        Stripe.setMaxNetworkRetries(maxNetworkRetries);
     }
 }
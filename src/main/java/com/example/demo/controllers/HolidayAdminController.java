@@ -0,0 +1,53 @@
+package com.example.demo.controllers;
+
+import com.example.demo.dto.HolidayDto;
+import com.example.demo.services.HolidayService;
+import io.swagger.v3.oas.annotations.Operation;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@RestController
+@RequestMapping("/admin/holidays")
+@RequiredArgsConstructor
+public class HolidayAdminController {
+
+    private final HolidayService holidayService;
+
+    @GetMapping
+    @Operation(summary = "Get the holidays from a date on (today by default)", tags = {"Admin Holidays"})
+    public ResponseEntity<List<HolidayDto>> getHolidays(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fromDate) {
+        return ResponseEntity.ok(holidayService.getHolidays(fromDate));
+    }
+
+    @PostMapping
+    @Operation(summary = "Add a holiday, for one city or every city", tags = {"Admin Holidays"})
+    public ResponseEntity<HolidayDto> createHoliday(@RequestBody HolidayDto holidayDto) {
+        return new ResponseEntity<>(holidayService.createHoliday(holidayDto), HttpStatus.CREATED);
+    }
+
+    @PutMapping("/{holidayId}")
+    @Operation(summary = "Update a holiday", tags = {"Admin Holidays"})
+    public ResponseEntity<HolidayDto> updateHolidayById(@PathVariable Long holidayId, @RequestBody HolidayDto holidayDto) {
+        return ResponseEntity.ok(holidayService.updateHolidayById(holidayId, holidayDto));
+    }
+
+    @DeleteMapping("/{holidayId}")
+    @Operation(summary = "Delete a holiday", tags = {"Admin Holidays"})
+    public ResponseEntity<Void> deleteHolidayById(@PathVariable Long holidayId) {
+        holidayService.deleteHolidayById(holidayId);
+        return ResponseEntity.noContent().build();
+    }
+
+    @PostMapping("/reload")
+    @Operation(summary = "Reload the holiday calendar from the database and the calendar file", tags = {"Admin Holidays"})
+    public ResponseEntity<Integer> reloadCalendar() {
+        return ResponseEntity.ok(holidayService.reloadCalendar());
+    }
+}
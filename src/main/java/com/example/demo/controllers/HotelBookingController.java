@@ -2,6 +2,7 @@ package com.example.demo.controllers;
 
 import com.example.demo.dto.*;
 import com.example.demo.services.BookingService;
+import com.example.demo.services.IdempotencyService;
 import io.swagger.v3.oas.annotations.Operation;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
@@ -15,10 +16,14 @@ import java.util.List;
 public class HotelBookingController {
 
     private final BookingService bookingService;
+    private final IdempotencyService idempotencyService;
 
+    //Clients retrying after a timeout send the same Idempotency-Key, so the rooms are reserved only once.
     @PostMapping("/init")
-    public ResponseEntity<BookingDto> initialiseBooking(@RequestBody BookingRequest bookingRequest) {
-        return ResponseEntity.ok(bookingService.initialiseBooking(bookingRequest));
+    public ResponseEntity<BookingDto> initialiseBooking(@RequestBody BookingRequest bookingRequest,
+                                                        @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
+        return ResponseEntity.ok(idempotencyService.execute(idempotencyKey, "booking-init", bookingRequest,
+                BookingDto.class, () -> bookingService.initialiseBooking(bookingRequest)));
     }
 
     @PostMapping("/{bookingId}/addGuests")
@@ -30,9 +35,11 @@ public class HotelBookingController {
 
     @PostMapping("/{bookingId}/payments")
     @Operation(summary = "Initiate payments flow for the booking", tags = {"Booking Flow"})
-    public ResponseEntity<BookingPaymentInitResponseDto> initiatePayment(@PathVariable Long bookingId) {
-        String sessionUrl = bookingService.initiatePayments(bookingId);
-        return ResponseEntity.ok(new BookingPaymentInitResponseDto(sessionUrl));
+    public ResponseEntity<BookingPaymentInitResponseDto> initiatePayment(@PathVariable Long bookingId,
+                                                                         @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
+        return ResponseEntity.ok(idempotencyService.execute(idempotencyKey, "booking-payment", bookingId,
+                BookingPaymentInitResponseDto.class,
+                () -> new BookingPaymentInitResponseDto(bookingService.initiatePayments(bookingId))));
     }
 
     @PostMapping("/{bookingId}/cancel")
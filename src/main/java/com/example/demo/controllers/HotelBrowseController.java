@@ -4,6 +4,7 @@ import com.example.demo.dto.*;
 import com.example.demo.services.HotelService;
 import com.example.demo.services.InventoryService;
 import io.swagger.v3.oas.annotations.Operation;
+import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.http.ResponseEntity;
@@ -20,12 +21,18 @@ public class HotelBrowseController {
     private final HotelService hotelService;
 
     @GetMapping("/search")
-    public ResponseEntity<Page<HotelPriceResponseDto>> searchHotels(@RequestBody HotelSearchRequest hotelSearchRequest) {
+    public ResponseEntity<Page<HotelPriceResponseDto>> searchHotels(@RequestBody @Valid HotelSearchRequest hotelSearchRequest) {
        //multiple hotels come in a page.
         var page = inventoryService.searchHotels(hotelSearchRequest); //price is the hotel minimum price.
         return ResponseEntity.ok(page);
     }
 
+    @GetMapping("/search/cursor")
+    @Operation(summary = "Search hotels page by page using a continuation cursor", tags = {"Browse Hotels"})
+    public ResponseEntity<CursorPageDto<HotelPriceResponseDto>> searchHotelsByCursor(@RequestBody @Valid HotelSearchRequest hotelSearchRequest) {
+        return ResponseEntity.ok(inventoryService.searchHotelsByCursor(hotelSearchRequest));
+    }
+
     @GetMapping("/{hotelId}/info")
     @Operation(summary = "Get a hotel info by hotelId", tags = {"Browse Hotels"})
     public ResponseEntity<HotelInfoDto> getHotelInfo(@PathVariable Long hotelId, @RequestBody HotelInfoRequestDto hotelInfoRequestDto) {
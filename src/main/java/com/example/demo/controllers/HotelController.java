@@ -1,6 +1,7 @@
 package com.example.demo.controllers;
 
 import com.example.demo.dto.BookingDto;
+import com.example.demo.dto.CursorPageDto;
 import com.example.demo.dto.HotelDto;
 import com.example.demo.dto.HotelReportDto;
 import com.example.demo.entity.Booking;
@@ -11,6 +12,9 @@ import com.example.demo.exceptions.UnAuthorisedException;
 import com.example.demo.services.BookingService;
 import com.example.demo.services.HotelService;
 import io.swagger.v3.oas.annotations.Operation;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
@@ -33,7 +37,7 @@ public class HotelController {
     private final BookingService bookingService;
 
     @PostMapping
-    public ResponseEntity<HotelDto> createNewHotel(@RequestBody HotelDto hotelDto) {
+    public ResponseEntity<HotelDto> createNewHotel(@RequestBody @Valid HotelDto hotelDto) {
         log.info("Attempting to create a new hotel");
 
         HotelDto hotel = hotelService.createNewHotel(hotelDto);
@@ -48,7 +52,7 @@ public class HotelController {
     }
 
     @PutMapping("/{hotelId}")
-    public ResponseEntity<HotelDto> updateHotelById(@PathVariable Long hotelId, @RequestBody HotelDto hotelDto) {
+    public ResponseEntity<HotelDto> updateHotelById(@PathVariable Long hotelId, @RequestBody @Valid HotelDto hotelDto) {
 
         HotelDto updatedHotelDto = hotelService.updateHotelById(hotelId, hotelDto);
 
@@ -82,6 +86,14 @@ public class HotelController {
         return ResponseEntity.ok(bookingService.getAllBookingsByHotelId(hotelId));
     }
 
+    @GetMapping("/{hotelId}/bookings/cursor")
+    @Operation(summary = "Get the bookings of a hotel page by page, newest first", tags = {"Admin Bookings"})
+    public ResponseEntity<CursorPageDto<BookingDto>> getBookingsByHotelId(@PathVariable Long hotelId,
+                                                                         @RequestParam(required = false) String cursor,
+                                                                         @RequestParam(defaultValue = "20") @Min(1) @Max(100) int size) {
+        return ResponseEntity.ok(bookingService.getAllBookingsByHotelId(hotelId, cursor, size));
+    }
+
     @GetMapping("/{hotelId}/reports")
     @Operation(summary = "Generate a bookings report of a hotel", tags = {"Admin Bookings"})
     public ResponseEntity<HotelReportDto> getHotelReport(@PathVariable Long hotelId,
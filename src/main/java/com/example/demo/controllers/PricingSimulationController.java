@@ -0,0 +1,25 @@
+package com.example.demo.controllers;
+
+import com.example.demo.dto.PricingSimulationRequestDto;
+import com.example.demo.dto.PricingSimulationResultDto;
+import com.example.demo.services.PricingSimulationService;
+import io.swagger.v3.oas.annotations.Operation;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/admin/hotels/{hotelId}/pricing")
+@RequiredArgsConstructor
+public class PricingSimulationController {
+
+    private final PricingSimulationService pricingSimulationService;
+
+    @PostMapping("/simulate")
+    @Operation(summary = "Simulate the prices of a hotel with other strategies or surge factors, without changing them",
+            tags = {"Admin Pricing"})
+    public ResponseEntity<PricingSimulationResultDto> simulatePricing(@PathVariable Long hotelId,
+                                                                      @RequestBody PricingSimulationRequestDto simulationRequest) {
+        return ResponseEntity.ok(pricingSimulationService.simulate(hotelId, simulationRequest));
+    }
+}
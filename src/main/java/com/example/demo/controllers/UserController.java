@@ -1,6 +1,7 @@
 package com.example.demo.controllers;
 
 import com.example.demo.dto.BookingDto;
+import com.example.demo.dto.CursorPageDto;
 import com.example.demo.dto.GuestDto;
 import com.example.demo.dto.ProfileUpdateRequestDto;
 import com.example.demo.dto.UserDto;
@@ -10,6 +11,8 @@ import com.example.demo.services.BookingService;
 import com.example.demo.services.GuestService;
 import com.example.demo.services.UserService;
 import io.swagger.v3.oas.annotations.Operation;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
@@ -48,6 +51,13 @@ public class UserController {
         return ResponseEntity.ok(bookingService.getMyBookings());
     }
 
+    @GetMapping("/myBookings/cursor")
+    @Operation(summary = "Get my bookings page by page, newest first", tags = {"Profile"})
+    public ResponseEntity<CursorPageDto<BookingDto>> getMyBookings(@RequestParam(required = false) String cursor,
+                                                                  @RequestParam(defaultValue = "20") @Min(1) @Max(100) int size) {
+        return ResponseEntity.ok(bookingService.getMyBookings(cursor, size));
+    }
+
     @GetMapping("/profile")
     @Operation(summary = "Get my Profile", tags = {"Profile"})
     public ResponseEntity<UserDto> getMyProfile() {
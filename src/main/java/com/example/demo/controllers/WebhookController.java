@@ -1,6 +1,6 @@
 package com.example.demo.controllers;
 
-import com.example.demo.services.BookingService;
+import com.example.demo.services.WebhookInboxService;
 import com.stripe.exception.SignatureVerificationException;
 import com.stripe.model.Event;
 import com.stripe.net.Webhook;
@@ -15,7 +15,7 @@ import org.springframework.web.bind.annotation.*;
 @RequiredArgsConstructor
 public class WebhookController {
 
-    private final BookingService bookingService;
+    private final WebhookInboxService webhookInboxService;
 
     @Value("${stripe.webhook.secret}")
     private String endpointSecret;
@@ -32,7 +32,9 @@ public class WebhookController {
             //signature headers for verfification.
             //This check ensures that only stripe calls this API.
             Event event = Webhook.constructEvent(payload, sigHeader, endpointSecret);
-            bookingService.capturePayment(event);
+            //the event is only stored here and acknowledged right away, WebhookInboxService processes it.
+            //a redelivered event is acknowledged without being stored again.
+            webhookInboxService.receive(event, payload);
             return ResponseEntity.noContent().build();
         } catch (SignatureVerificationException e) {
             throw new RuntimeException(e);
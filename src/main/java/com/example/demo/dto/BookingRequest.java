@@ -12,4 +12,5 @@ public class BookingRequest {
     private LocalDate checkInDate;
     private LocalDate checkOutDate;
     private Integer roomsCount;
+    private String quoteToken; // optional, from the hotel info of the room.
 }
@@ -0,0 +1,15 @@
+package com.example.demo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+//The Stripe checkout session created for a booking: its id is stored with the booking, the url is where the client
+//is redirected to pay.
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class CheckoutSessionDto {
+    private String sessionId;
+    private String url;
+}
@@ -0,0 +1,19 @@
+package com.example.demo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+//One day of a hotel's HotelMinPrice series.
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class DailyMinPriceDto {
+
+    private LocalDate date;
+    private BigDecimal price;
+    private Integer availableRooms;
+}
@@ -0,0 +1,21 @@
+package com.example.demo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class DailyPriceDeltaDto {
+
+    private LocalDate date;
+    private BigDecimal currentAveragePrice; // average over the room types of the price they have today.
+    private BigDecimal simulatedAveragePrice;
+    private BigDecimal averagePriceDelta;
+    private BigDecimal currentRevenue; // price * booked rooms of every room type.
+    private BigDecimal projectedRevenue;
+}
@@ -0,0 +1,14 @@
+package com.example.demo.dto;
+
+import lombok.Data;
+
+import java.time.LocalDate;
+
+@Data
+public class HolidayDto {
+
+    private Long id;
+    private String city; // empty for a holiday in every city.
+    private LocalDate date;
+    private String name;
+}
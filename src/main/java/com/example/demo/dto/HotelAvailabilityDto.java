@@ -0,0 +1,16 @@
+package com.example.demo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+//A hotel that has at least one room type free for the whole stay, with the cheapest average nightly price.
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class HotelAvailabilityDto {
+
+    private Long hotelId;
+    private Double price;
+
+}
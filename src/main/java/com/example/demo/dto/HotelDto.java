@@ -1,7 +1,10 @@
 package com.example.demo.dto;
 
 import com.example.demo.entity.HotelContactInfo;
+import com.example.demo.entity.enums.ReservationMode;
 import jakarta.persistence.*;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
 import lombok.Data;
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.UpdateTimestamp;
@@ -11,6 +14,10 @@ import java.time.LocalDateTime;
 @Data
 public class HotelDto {
 
+    //inventory is inserted and partitions are created up to the horizon, so it is kept within two years.
+    public static final int MIN_INVENTORY_HORIZON_DAYS = 1;
+    public static final int MAX_INVENTORY_HORIZON_DAYS = 730;
+
     private Long id;
     private String name;
     private String city;
@@ -18,5 +25,9 @@ public class HotelDto {
     private String[] amenities;
     private HotelContactInfo contactInfo;
     private Boolean active;
+    @Min(MIN_INVENTORY_HORIZON_DAYS)
+    @Max(MAX_INVENTORY_HORIZON_DAYS)
+    private Integer inventoryHorizonDays;
+    private ReservationMode reservationMode;
 
 }
@@ -1,5 +1,8 @@
 package com.example.demo.dto;
 
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
 import lombok.Data;
 
 import java.time.LocalDate;
@@ -12,9 +15,16 @@ public class HotelSearchRequest {
     private LocalDate endDate;
     private Integer roomsCount;
 
+    @NotNull
+    @Min(0)
     private Integer page = 0; // by default the page is zero
+    @NotNull
+    @Min(1)
+    @Max(100)
     private Integer size = 10; // the page size is 10 by default
 
+    private String cursor; // only used by the cursor based search, null for the first page
+
 }
 
 //When we are searching the hotels for booking, we would need the dates, number of rooms and the location.
\ No newline at end of file
@@ -0,0 +1,24 @@
+package com.example.demo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+//Lightweight row used to build the in-memory availability index without loading Inventory entities.
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class InventoryAvailabilityDto {
+
+    private Long hotelId;
+    private Long roomId;
+    private String city;
+    private LocalDate date;
+    private Integer freeCount;
+    private Boolean closed;
+    private BigDecimal price;
+
+}
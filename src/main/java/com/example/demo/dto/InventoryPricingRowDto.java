@@ -0,0 +1,24 @@
+package com.example.demo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class InventoryPricingRowDto {
+
+    private Long roomId;
+    private BigDecimal basePrice;
+    private String city;
+    private LocalDate date;
+    private Integer bookedCount;
+    private Integer totalCount;
+    private BigDecimal surgeFactor;
+    private Boolean closed;
+    private BigDecimal price;
+}
@@ -0,0 +1,18 @@
+package com.example.demo.dto;
+
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+@Data
+public class PricingSimulationRequestDto {
+
+    private LocalDate startDate; // today when empty.
+    private LocalDate endDate; // a year after startDate when empty.
+    private List<String> strategyOrder; // the strategies to apply, in order. Empty keeps the current pipeline.
+    private BigDecimal surgeFactor; // replaces the surge factor of every room type when set.
+    private Map<Long, BigDecimal> surgeFactorsByRoom; // replaces the surge factor of single room types, by room id.
+}
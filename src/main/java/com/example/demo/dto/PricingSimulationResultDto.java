@@ -0,0 +1,22 @@
+package com.example.demo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class PricingSimulationResultDto {
+
+    private Long hotelId;
+    private List<String> strategyOrder;
+    private int inventoryRows;
+    private BigDecimal currentRevenue;
+    private BigDecimal projectedRevenue;
+    private List<DailyPriceDeltaDto> days;
+    private long elapsedMillis;
+}
@@ -4,6 +4,9 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.math.BigDecimal;
+import java.util.List;
+
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
@@ -13,5 +16,7 @@ public class RoomPriceResponseDto {
     private String[] photos;
     private String[] amenities;
     private Double price;
+    private List<BigDecimal> nightlyPrices;
+    private String quoteToken; // pass it with the booking request to be charged these prices.
 }
 
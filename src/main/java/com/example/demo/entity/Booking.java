@@ -21,7 +21,8 @@ import java.util.Set;
 public class Booking {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "booking_seq") // a sequence lets hibernate batch inserts
+    @SequenceGenerator(name = "booking_seq", sequenceName = "booking_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -69,4 +70,8 @@ public class Booking {
     @Column(unique = true)
     private String paymentSessionId;
 
+    //the status a payment start moved the booking out of, it goes back there when the start fails or is abandoned.
+    @Enumerated(EnumType.STRING)
+    private BookingStatus statusBeforePayment;
+
 }
@@ -0,0 +1,35 @@
+package com.example.demo.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+@Entity
+@Getter
+@Setter
+//one holiday per city and date; HolidayIndexInitializer adds the same for the holidays of every city (city IS NULL).
+@Table(uniqueConstraints = @UniqueConstraint(name = "unique_holiday_city_date", columnNames = {"city", "date"}))
+public class Holiday {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    private String city; // null for a holiday that applies to every city.
+
+    @Column(nullable = false)
+    private LocalDate date;
+
+    private String name;
+
+    @CreationTimestamp
+    private LocalDateTime createdAt;
+
+    @UpdateTimestamp
+    private LocalDateTime updatedAt;
+}
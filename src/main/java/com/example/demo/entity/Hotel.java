@@ -1,10 +1,12 @@
 package com.example.demo.entity;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.example.demo.entity.enums.ReservationMode;
 import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.Setter;
 import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.DynamicUpdate;
 import org.hibernate.annotations.UpdateTimestamp;
 
 import java.time.LocalDateTime;
@@ -14,6 +16,7 @@ import java.util.List;
 @Getter
 @Setter
 @Table(name = "hotel")
+@DynamicUpdate // saving a hotel never writes back a pricingEpoch that was read before a repricing.
 public class Hotel {
 
     @Id
@@ -43,6 +46,15 @@ public class Hotel {
     @Column(nullable = false)
     private Boolean active;
 
+    private Integer inventoryHorizonDays; // how many days ahead inventory is kept, null uses inventory.horizon-days.
+
+    @Enumerated(EnumType.STRING)
+    private ReservationMode reservationMode; // null uses booking.reservation-mode.
+
+    //Bumped every time the hotel is repriced, price quotes made before that are refused.
+    @Column(nullable = false, columnDefinition = "BIGINT DEFAULT 0")
+    private Long pricingEpoch = 0L;
+
     @OneToMany(mappedBy = "hotel")
     @JsonIgnore
     private List<Room> rooms;
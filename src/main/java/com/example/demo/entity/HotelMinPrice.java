@@ -16,10 +16,12 @@ import java.time.LocalDateTime;
 @Getter
 @Setter
 @NoArgsConstructor
+@Table(uniqueConstraints = @UniqueConstraint(name = "unique_hotel_min_price_hotel_date", columnNames = {"hotel_id", "date"}))
 public class HotelMinPrice {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "hotel_min_price_seq") // a sequence lets hibernate batch inserts
+    @SequenceGenerator(name = "hotel_min_price_seq", sequenceName = "hotel_min_price_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -30,7 +32,10 @@ public class HotelMinPrice {
     private LocalDate date;
 
     @Column(nullable = false, precision = 10, scale = 2)
-    private BigDecimal price; // cheapest room price on a particular day
+    private BigDecimal price; // cheapest price among the room types that still have free rooms on that day
+
+    @Column(nullable = false, columnDefinition = "INTEGER DEFAULT 0")
+    private Integer availableRooms; // the most free rooms any single room type of the hotel has on that day
 
     @CreationTimestamp
     private LocalDateTime createdAt;
@@ -0,0 +1,39 @@
+package com.example.demo.entity;
+
+import com.example.demo.entity.enums.IdempotencyStatus;
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+//A request made with an Idempotency-Key header and the response it got, kept until expiresAt so retries of the
+//request get the same response without running it again. See IdempotencyService.
+@Entity
+@Getter
+@Setter
+@Table(indexes = @Index(name = "idx_idempotency_record_expires_at", columnList = "expiresAt"))
+public class IdempotencyRecord {
+
+    @Id
+    private String id; // user id, operation and Idempotency-Key, e.g. 42:booking-init:3f1c...
+
+    @Column(nullable = false, length = 64)
+    private String requestHash; // SHA-256 of the operation and request body, a key may not be reused for another request.
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private IdempotencyStatus status;
+
+    @Column(length = 36)
+    private String claimToken; // random per claim, only the request holding the claim may complete or release it.
+
+    @Column(columnDefinition = "TEXT")
+    private String responseBody;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(nullable = false)
+    private LocalDateTime expiresAt;
+}
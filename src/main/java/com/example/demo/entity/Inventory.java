@@ -3,6 +3,7 @@ package com.example.demo.entity;
 import jakarta.persistence.*;
 import lombok.*;
 import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.DynamicUpdate;
 import org.hibernate.annotations.UpdateTimestamp;
 
 import java.math.BigDecimal;
@@ -20,10 +21,12 @@ import java.time.LocalDateTime;
         ))
 @NoArgsConstructor
 @AllArgsConstructor
+@DynamicUpdate // entity updates (pricing) only write the changed columns and never overwrite the counts.
 public class Inventory {// what does the date specify in the inventory. WHat is meant byb the booking guests?
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "inventory_seq") // a sequence lets hibernate batch inserts
+    @SequenceGenerator(name = "inventory_seq", sequenceName = "inventory_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -58,6 +61,18 @@ public class Inventory {// what does the date specify in the inventory. WHat is
     @Column(nullable = false)
     private Boolean closed;
 
+    //Bumped by every query that changes the counts or closes the inventory, see InventoryRepository.
+    //Deliberately not a JPA @Version: the pricing job saves prices through the entities and must not conflict with bookings.
+    @Builder.Default
+    @Column(nullable = false, columnDefinition = "BIGINT DEFAULT 0")
+    private Long version = 0L;
+
+    //Set whenever something the price depends on changes and cleared once the pricing job has repriced the row,
+    //so the hourly job only has to look at these rows. New rows start dirty.
+    @Builder.Default
+    @Column(nullable = false, columnDefinition = "BOOLEAN DEFAULT TRUE")
+    private Boolean priceDirty = true;
+
     @CreationTimestamp
     private LocalDateTime createdAt;
 
@@ -38,6 +38,11 @@ public class User implements UserDetails {
     @Enumerated(EnumType.STRING)
     private Gender gender;
 
+    //created with the user's first checkout and only ever set by StripeCustomerService, never by saving the user,
+    //so a user entity loaded before it was set cannot overwrite it.
+    @Column(unique = true, updatable = false)
+    private String stripeCustomerId;
+
     @ElementCollection(fetch = FetchType.EAGER)
     @Enumerated(EnumType.STRING)
     private Set<Role> roles;
@@ -0,0 +1,44 @@
+package com.example.demo.entity;
+
+import com.example.demo.entity.enums.WebhookEventStatus;
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+//The webhook inbox: every verified Stripe event is stored under its own id before it is acknowledged, so a
+//redelivered event finds its row and is not processed twice. WebhookInboxService processes the pending rows.
+@Entity
+@Getter
+@Setter
+@Table(indexes = @Index(name = "idx_webhook_event_pending", columnList = "status, nextAttemptAt"))
+public class WebhookEvent {
+
+    @Id
+    private String id; // the Stripe event id, evt_...
+
+    @Column(nullable = false)
+    private String type;
+
+    @Column(nullable = false, columnDefinition = "TEXT")
+    private String payload;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private WebhookEventStatus status;
+
+    @Column(nullable = false)
+    private Integer attempts;
+
+    @Column(nullable = false)
+    private LocalDateTime receivedAt;
+
+    @Column(nullable = false)
+    private LocalDateTime nextAttemptAt;
+
+    private LocalDateTime processedAt;
+
+    @Column(length = 1000)
+    private String lastError;
+}
@@ -0,0 +1,6 @@
+package com.example.demo.entity.enums;
+
+public enum IdempotencyStatus {
+    IN_PROGRESS, // the first request with the key is still running.
+    COMPLETED    // the response is stored and replayed for retries with the key.
+}
@@ -0,0 +1,12 @@
+package com.example.demo.entity.enums;
+
+public enum InventoryChangeType {
+    RESERVED,   // rooms moved from free to reserved when a booking is initialised.
+    CONFIRMED,  // reserved rooms became booked after the payment was captured.
+    CANCELLED,  // booked rooms went back to the free pool.
+    RELEASED,   // reserved rooms went back to the free pool (expired or payment pending cancellation).
+    UPDATED,    // surge factor or closed flag changed by the hotel manager.
+    CREATED,    // new inventory rows were generated for a room.
+    DELETED,    // all inventory rows of a room were removed.
+    REPRICED    // the pricing job rewrote the prices of a hotel.
+}
@@ -0,0 +1,6 @@
+package com.example.demo.entity.enums;
+
+public enum RepricingMode {
+    ENTITY, // loads the inventory rows, prices them with the pricing pipeline and saves them.
+    SQL // one UPDATE per hotel generated from the pricing strategies, see SqlRepricingService.
+}
@@ -0,0 +1,7 @@
+package com.example.demo.entity.enums;
+
+public enum ReservationMode {
+    PESSIMISTIC, // SELECT ... FOR UPDATE on the inventory rows, then a separate UPDATE.
+    SINGLE_STATEMENT, // one UPDATE ... RETURNING that checks, reserves and returns the rows.
+    OPTIMISTIC // plain reads, then one UPDATE per day that only succeeds if the row version did not change.
+}
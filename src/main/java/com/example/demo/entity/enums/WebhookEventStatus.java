@@ -0,0 +1,7 @@
+package com.example.demo.entity.enums;
+
+public enum WebhookEventStatus {
+    PENDING,    // stored, waiting for a worker (again, after a failed attempt).
+    PROCESSED,  // handled, redeliveries of the event are ignored.
+    FAILED      // gave up after webhook.inbox.max-attempts attempts.
+}
@@ -0,0 +1,16 @@
+package com.example.demo.events;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.time.LocalDate;
+
+//Published when a holiday is added, changed or removed, so the in-memory holiday calendar is reloaded
+//once the change has been committed.
+@Data
+@AllArgsConstructor
+public class HolidaysChangedEvent {
+
+    private String city;
+    private LocalDate date;
+}
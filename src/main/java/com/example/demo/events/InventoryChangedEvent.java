@@ -0,0 +1,26 @@
+package com.example.demo.events;
+
+import com.example.demo.entity.enums.InventoryChangeType;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.time.LocalDate;
+
+//Published whenever the inventory of a room (or a whole hotel, roomId == null) changes.
+//Listeners use @TransactionalEventListener so they only see the change once it has been committed.
+@Data
+@AllArgsConstructor
+public class InventoryChangedEvent {
+
+    private InventoryChangeType type;
+    private Long hotelId;
+    private Long roomId;
+    private String city;
+    private LocalDate startDate;
+    private LocalDate endDate;
+    private Integer roomsCount;
+
+    public static InventoryChangedEvent forHotel(InventoryChangeType type, Long hotelId, String city) {
+        return new InventoryChangedEvent(type, hotelId, null, city, null, null, null);
+    }
+}
@@ -0,0 +1,10 @@
+package com.example.demo.exceptions;
+
+//Thrown when the client sent a request that cannot be served as it is, e.g. a tampered cursor or an invalid quote.
+public class BadRequestException extends RuntimeException {
+
+    public BadRequestException(String message) {
+
+        super(message);
+    }
+}
@@ -0,0 +1,10 @@
+package com.example.demo.exceptions;
+
+//Thrown when too many bookings for the same room are already in progress and the request could not get a slot in time.
+public class BookingOverloadedException extends RuntimeException {
+
+    public BookingOverloadedException(String message) {
+
+        super(message);
+    }
+}
@@ -0,0 +1,10 @@
+package com.example.demo.exceptions;
+
+//Thrown when a request arrives with an Idempotency-Key whose first request is still being processed.
+public class IdempotencyKeyInUseException extends RuntimeException {
+
+    public IdempotencyKeyInUseException(String message) {
+
+        super(message);
+    }
+}
@@ -0,0 +1,16 @@
+package com.example.demo.exceptions;
+
+//Thrown when the payment provider is too slow or too busy to start a payment right now; the booking is left as it
+//was, so the client can simply try again.
+public class PaymentProviderUnavailableException extends RuntimeException {
+
+    public PaymentProviderUnavailableException(String message) {
+
+        super(message);
+    }
+
+    public PaymentProviderUnavailableException(String message, Throwable cause) {
+
+        super(message, cause);
+    }
+}
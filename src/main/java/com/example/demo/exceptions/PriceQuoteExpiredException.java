@@ -0,0 +1,10 @@
+package com.example.demo.exceptions;
+
+//Thrown when a booking comes with a price quote that expired or was made before the hotel was repriced.
+public class PriceQuoteExpiredException extends RuntimeException {
+
+    public PriceQuoteExpiredException(String message) {
+
+        super(message);
+    }
+}
@@ -0,0 +1,10 @@
+package com.example.demo.exceptions;
+
+//Thrown when an optimistic reservation lost the race for an inventory row.
+public class ReservationConflictException extends RuntimeException {
+
+    public ReservationConflictException(String message) {
+
+        super(message);
+    }
+}
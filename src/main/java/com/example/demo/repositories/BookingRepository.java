@@ -5,6 +5,7 @@ import com.example.demo.entity.Hotel;
 import com.example.demo.entity.User;
 import com.example.demo.entity.enums.BookingStatus;
 import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Modifying;
@@ -13,6 +14,7 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -21,12 +23,51 @@ public interface BookingRepository extends JpaRepository<Booking, Long> {
 
     Optional<Booking> findByPaymentSessionId(String sessionId);
 
+    //in the order their inventory is locked in, so transactions confirming several bookings cannot deadlock.
+    @Query("""
+            SELECT b
+            FROM Booking b
+            WHERE b.paymentSessionId IN :sessionIds
+            ORDER BY b.room.id, b.checkInDate, b.id
+            """)
+    List<Booking> findByPaymentSessionIdInLockOrder(@Param("sessionIds") Collection<String> sessionIds);
+
     List<Booking> findByHotel(Hotel hotel);
 
     List<Booking> findByHotelAndCreatedAtBetween(Hotel hotel, LocalDateTime startDateTime, LocalDateTime endDateTime);
 
     List<Booking> findByUser(User user);
 
+    //Keyset pagination, newest bookings first. The first page uses the derived queries,
+    //the following pages continue after the (createdAt, id) of the last booking returned.
+    List<Booking> findByHotelOrderByCreatedAtDescIdDesc(Hotel hotel, Limit limit);
+
+    List<Booking> findByUserOrderByCreatedAtDescIdDesc(User user, Limit limit);
+
+    @Query("""
+    SELECT b
+    FROM Booking b
+    WHERE b.hotel = :hotel
+      AND (b.createdAt < :createdAt OR (b.createdAt = :createdAt AND b.id < :id))
+    ORDER BY b.createdAt DESC, b.id DESC
+""")
+    List<Booking> findByHotelBefore(@Param("hotel") Hotel hotel,
+                                    @Param("createdAt") LocalDateTime createdAt,
+                                    @Param("id") Long id,
+                                    Limit limit);
+
+    @Query("""
+    SELECT b
+    FROM Booking b
+    WHERE b.user = :user
+      AND (b.createdAt < :createdAt OR (b.createdAt = :createdAt AND b.id < :id))
+    ORDER BY b.createdAt DESC, b.id DESC
+""")
+    List<Booking> findByUserBefore(@Param("user") User user,
+                                   @Param("createdAt") LocalDateTime createdAt,
+                                   @Param("id") Long id,
+                                   Limit limit);
+
     @Query("""
     SELECT b
     FROM Booking b
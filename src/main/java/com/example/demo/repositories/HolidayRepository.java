@@ -0,0 +1,12 @@
+package com.example.demo.repositories;
+
+import com.example.demo.entity.Holiday;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public interface HolidayRepository extends JpaRepository<Holiday, Long> {
+
+    List<Holiday> findByDateGreaterThanEqualOrderByDate(LocalDate date);
+}
@@ -4,15 +4,17 @@ import com.example.demo.dto.HotelPriceDto;
 import com.example.demo.entity.Hotel;
 import com.example.demo.entity.HotelMinPrice;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
 import java.time.LocalDate;
+import java.util.List;
 import java.util.Optional;
 
-public interface HotelMinPriceRepository extends JpaRepository<HotelMinPrice, Long> {
+public interface HotelMinPriceRepository extends JpaRepository<HotelMinPrice, Long>, HotelMinPriceRepositoryCustom {
 
     @Query("""
             SELECT new com.example.demo.dto.HotelPriceDto(i.hotel, AVG(i.price))
@@ -20,8 +22,12 @@ public interface HotelMinPriceRepository extends JpaRepository<HotelMinPrice, Lo
             WHERE i.hotel.city = :city
                 AND i.date BETWEEN :startDate AND :endDate
                 AND i.hotel.active = true
+                AND i.availableRooms >= :roomsCount
            GROUP BY i.hotel
+           HAVING COUNT(i.date) = :dateCount
            """) //multiple hotels. grouping by hotel id's and taking the average min price for each hotel for all days.
+                 //only the days on which some room type has roomsCount free rooms are kept, so a hotel must have
+                 //dateCount such days to be listed.
     Page<HotelPriceDto> findHotelsWithAvailableInventory(
             @Param("city") String city,
             @Param("startDate") LocalDate startDate,
@@ -31,5 +37,33 @@ public interface HotelMinPriceRepository extends JpaRepository<HotelMinPrice, Lo
             Pageable pageable
     );
 
+    //keyset version of the query above: hotels sorted by (average price, hotel id) starting right after the
+    //last hotel of the previous page. No count query is issued.
+    @Query("""
+            SELECT new com.example.demo.dto.HotelPriceDto(i.hotel, AVG(i.price))
+            FROM HotelMinPrice i
+            WHERE i.hotel.city = :city
+                AND i.date BETWEEN :startDate AND :endDate
+                AND i.hotel.active = true
+                AND i.availableRooms >= :roomsCount
+           GROUP BY i.hotel
+           HAVING COUNT(i.date) = :dateCount
+                AND (AVG(i.price) > :lastPrice
+                    OR (AVG(i.price) = :lastPrice AND i.hotel.id > :lastHotelId))
+           ORDER BY AVG(i.price), i.hotel.id
+           """)
+    List<HotelPriceDto> findHotelsWithAvailableInventoryAfter(
+            @Param("city") String city,
+            @Param("startDate") LocalDate startDate,
+            @Param("endDate") LocalDate endDate,
+            @Param("roomsCount") Integer roomsCount,
+            @Param("dateCount") Long dateCount,
+            @Param("lastPrice") Double lastPrice,
+            @Param("lastHotelId") Long lastHotelId,
+            Limit limit
+    );
+
     Optional<HotelMinPrice> findByHotelAndDate(Hotel hotel, LocalDate date);
+
+    List<HotelMinPrice> findByHotelAndDateBetween(Hotel hotel, LocalDate startDate, LocalDate endDate);
 }
@@ -0,0 +1,13 @@
+package com.example.demo.repositories;
+
+import com.example.demo.dto.DailyMinPriceDto;
+
+import java.util.List;
+
+public interface HotelMinPriceRepositoryCustom {
+
+    //Inserts or updates the HotelMinPrice rows of the hotel for every given day in one JDBC batch, relying on the
+    //unique (hotel_id, date) constraint. Rows that already hold the same values are not rewritten.
+    //Returns the number of rows written.
+    int upsertHotelMinPrices(Long hotelId, List<DailyMinPriceDto> dailyPrices);
+}
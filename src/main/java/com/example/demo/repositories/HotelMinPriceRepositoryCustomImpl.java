@@ -0,0 +1,38 @@
+package com.example.demo.repositories;
+
+import com.example.demo.dto.DailyMinPriceDto;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Date;
+import java.util.Arrays;
+import java.util.List;
+
+@RequiredArgsConstructor
+public class HotelMinPriceRepositoryCustomImpl implements HotelMinPriceRepositoryCustom {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public int upsertHotelMinPrices(Long hotelId, List<DailyMinPriceDto> dailyPrices) {
+        if (dailyPrices.isEmpty()) return 0;
+
+        int[][] counts = jdbcTemplate.batchUpdate("""
+                INSERT INTO hotel_min_price (id, hotel_id, date, price, available_rooms, created_at, updated_at)
+                VALUES (nextval('hotel_min_price_seq'), ?, ?, ?, ?, now(), now())
+                ON CONFLICT (hotel_id, date) DO UPDATE
+                SET price = EXCLUDED.price,
+                    available_rooms = EXCLUDED.available_rooms,
+                    updated_at = EXCLUDED.updated_at
+                WHERE hotel_min_price.price <> EXCLUDED.price
+                    OR hotel_min_price.available_rooms <> EXCLUDED.available_rooms
+                """, dailyPrices, dailyPrices.size(), (statement, dailyPrice) -> {
+            statement.setLong(1, hotelId);
+            statement.setDate(2, Date.valueOf(dailyPrice.getDate()));
+            statement.setBigDecimal(3, dailyPrice.getPrice());
+            statement.setInt(4, dailyPrice.getAvailableRooms());
+        });
+        // the driver may only report that a statement succeeded, not how many rows it wrote.
+        return Arrays.stream(counts).flatMapToInt(Arrays::stream).map(count -> Math.max(count, 0)).sum();
+    }
+}
@@ -2,7 +2,11 @@ package com.example.demo.repositories;
 
 import com.example.demo.entity.Hotel;
 import com.example.demo.entity.User;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -12,4 +16,29 @@ public interface HotelRepository extends JpaRepository<Hotel, Long> {
 
 
     List<Hotel> findByOwner(User user);
+
+    @Query("SELECT h.id FROM Hotel h WHERE h.active = true")
+    List<Long> findActiveHotelIds();
+
+    @Modifying
+    @Query("UPDATE Hotel h SET h.pricingEpoch = h.pricingEpoch + 1 WHERE h.id = :hotelId")
+    void incrementPricingEpoch(@Param("hotelId") Long hotelId);
+
+    //every hotel in id order after lastHotelId, so long running jobs can walk the table in bounded batches.
+    @Query("SELECT h.id FROM Hotel h WHERE h.id > :lastHotelId ORDER BY h.id")
+    List<Long> findHotelIdsAfter(@Param("lastHotelId") Long lastHotelId, Limit limit);
+
+    //active hotels of one partition (id % partitionCount = partitionIndex), in id order after lastHotelId.
+    @Query("""
+            SELECT h.id
+            FROM Hotel h
+            WHERE h.active = true
+                AND MOD(h.id, :partitionCount) = :partitionIndex
+                AND h.id > :lastHotelId
+            ORDER BY h.id
+            """)
+    List<Long> findActiveHotelIdsInPartition(@Param("partitionCount") long partitionCount,
+                                             @Param("partitionIndex") long partitionIndex,
+                                             @Param("lastHotelId") Long lastHotelId,
+                                             Limit limit);
 }
@@ -0,0 +1,57 @@
+package com.example.demo.repositories;
+
+import com.example.demo.entity.IdempotencyRecord;
+import com.example.demo.entity.enums.IdempotencyStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, String> {
+
+    //Claims the key for a request: inserts it as IN_PROGRESS, or takes over a record that has expired (a completed
+    //response past its ttl, or a request that died while in progress). Returns 0 when the key is taken.
+    //The claim token identifies this claim, a request whose claim was taken over can no longer complete or release it.
+    @Modifying
+    @Query(value = """
+            INSERT INTO idempotency_record (id, request_hash, status, claim_token, created_at, expires_at)
+            VALUES (:id, :requestHash, 'IN_PROGRESS', :claimToken, :now, :expiresAt)
+            ON CONFLICT (id) DO UPDATE
+                SET request_hash = EXCLUDED.request_hash,
+                    status = EXCLUDED.status,
+                    claim_token = EXCLUDED.claim_token,
+                    response_body = NULL,
+                    created_at = EXCLUDED.created_at,
+                    expires_at = EXCLUDED.expires_at
+                WHERE idempotency_record.expires_at < :now
+            """, nativeQuery = true)
+    int claim(@Param("id") String id,
+              @Param("requestHash") String requestHash,
+              @Param("claimToken") String claimToken,
+              @Param("now") LocalDateTime now,
+              @Param("expiresAt") LocalDateTime expiresAt);
+
+    @Modifying
+    @Query("""
+            UPDATE IdempotencyRecord r
+            SET r.status = :status, r.responseBody = :responseBody, r.expiresAt = :expiresAt
+            WHERE r.id = :id AND r.claimToken = :claimToken
+            """)
+    int complete(@Param("id") String id,
+                 @Param("claimToken") String claimToken,
+                 @Param("status") IdempotencyStatus status,
+                 @Param("responseBody") String responseBody,
+                 @Param("expiresAt") LocalDateTime expiresAt);
+
+    @Modifying
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.id = :id AND r.claimToken = :claimToken")
+    int release(@Param("id") String id, @Param("claimToken") String claimToken);
+
+    @Modifying
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.expiresAt < :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+}
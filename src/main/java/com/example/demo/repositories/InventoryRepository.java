@@ -1,21 +1,27 @@
 package com.example.demo.repositories;
 
+import com.example.demo.dto.InventoryAvailabilityDto;
+import com.example.demo.dto.InventoryPricingRowDto;
 import com.example.demo.dto.RoomPriceDto;
 import com.example.demo.entity.Hotel;
 import com.example.demo.entity.Inventory;
 import com.example.demo.entity.Room;
 import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -80,23 +86,95 @@ public interface InventoryRepository extends JpaRepository<Inventory, Long> {
     @Modifying
     @Query("""
                 UPDATE Inventory i
-                SET i.reservedCount = i.reservedCount + :numberOfRooms
+                SET i.version = i.version + 1,
+                    i.reservedCount = i.reservedCount + :numberOfRooms
                 WHERE i.room.id = :roomId
                   AND i.date BETWEEN :startDate AND :endDate
                   AND (i.totalCount - i.bookedCount - i.reservedCount) >= :numberOfRooms
                   AND i.closed = false
             """)
-    void initBooking(@Param("roomId") Long roomId,
+    int initBooking(@Param("roomId") Long roomId,
                      @Param("startDate") LocalDate startDate,
                      @Param("endDate") LocalDate endDate,
                      @Param("numberOfRooms") int numberOfRooms);
 
 
+    //Same rows as findAndLockAvailableInventory, read without locking them. Used by the optimistic reservation.
+    @Query("""
+            SELECT i
+            FROM Inventory i
+            WHERE i.room.id = :roomId
+                AND i.date BETWEEN :startDate AND :endDate
+                AND i.closed = false
+                AND (i.totalCount - i.bookedCount - i.reservedCount) >= :roomsCount
+            """)
+    List<Inventory> findAvailableInventory(
+            @Param("roomId") Long roomId,
+            @Param("startDate") LocalDate startDate,
+            @Param("endDate") LocalDate endDate,
+            @Param("roomsCount") Integer roomsCount
+    );
+
+    //Number of days of the range with roomsCount free rooms, read without locking. Used by the booking admission to
+    //confirm a sold out answer of the availability index.
+    @Query("""
+            SELECT COUNT(i)
+            FROM Inventory i
+            WHERE i.room.id = :roomId
+                AND i.date BETWEEN :startDate AND :endDate
+                AND i.closed = false
+                AND (i.totalCount - i.bookedCount - i.reservedCount) >= :roomsCount
+            """)
+    long countAvailableDays(
+            @Param("roomId") Long roomId,
+            @Param("startDate") LocalDate startDate,
+            @Param("endDate") LocalDate endDate,
+            @Param("roomsCount") Integer roomsCount
+    );
+
+    //Reserves the rooms of one day only if nobody changed the row since it was read (returns 0 otherwise).
     @Modifying
     @Query("""
                 UPDATE Inventory i
-                SET i.reservedCount = i.reservedCount - :numberOfRooms,
-                    i.bookedCount = i.bookedCount + :numberOfRooms
+                SET i.version = i.version + 1,
+                    i.reservedCount = i.reservedCount + :numberOfRooms
+                WHERE i.id = :id
+                  AND i.date = :date
+                  AND i.version = :version
+            """)
+    int reserveInventoryIfUnchanged(@Param("id") Long id,
+                                    @Param("date") LocalDate date,
+                                    @Param("version") Long version,
+                                    @Param("numberOfRooms") int numberOfRooms);
+
+    //Checks the availability, reserves the rooms and returns the reserved rows in one statement, so the rows are
+    //locked only for the duration of the update. Days without enough free rooms are not updated and not returned.
+    @Query(value = """
+                UPDATE inventory
+                SET reserved_count = reserved_count + :numberOfRooms,
+                    version = version + 1
+                WHERE room_id = :roomId
+                  AND date BETWEEN :startDate AND :endDate
+                  AND (total_count - booked_count - reserved_count) >= :numberOfRooms
+                  AND closed = false
+                RETURNING *
+            """, nativeQuery = true)
+    List<Inventory> reserveAvailableInventory(@Param("roomId") Long roomId,
+                                              @Param("startDate") LocalDate startDate,
+                                              @Param("endDate") LocalDate endDate,
+                                              @Param("numberOfRooms") int numberOfRooms);
+
+    @Modifying
+    @Query("""
+                UPDATE Inventory i
+                SET i.version = i.version + 1,
+                    i.reservedCount = i.reservedCount - :numberOfRooms,
+                    i.bookedCount = i.bookedCount + :numberOfRooms,
+                    i.priceDirty = CASE
+                        WHEN i.bookedCount * 5 <= i.totalCount * 4
+                            AND (i.bookedCount + :numberOfRooms) * 5 > i.totalCount * 4 THEN true
+                        ELSE i.priceDirty
+                    END
                 WHERE i.room.id = :roomId
                   AND i.date BETWEEN :startDate AND :endDate
                   AND (i.totalCount - i.bookedCount) >= :numberOfRooms
@@ -104,6 +182,7 @@ public interface InventoryRepository extends JpaRepository<Inventory, Long> {
                   AND i.closed = false
             """)
     //before calling confirm booking, we should also be locking the reserved inventory.
+    //the price only changes when the occupancy goes above the 80% of OccupancyPricingStrategy, compared in integers.
     void confirmBooking(@Param("roomId") Long roomId,
                         @Param("startDate") LocalDate startDate,
                         @Param("endDate") LocalDate endDate,
@@ -128,7 +207,13 @@ public interface InventoryRepository extends JpaRepository<Inventory, Long> {
     @Modifying
     @Query("""
                 UPDATE Inventory i
-                SET i.bookedCount = i.bookedCount - :numberOfRooms
+                SET i.version = i.version + 1,
+                    i.bookedCount = i.bookedCount - :numberOfRooms,
+                    i.priceDirty = CASE
+                        WHEN i.bookedCount * 5 > i.totalCount * 4
+                            AND (i.bookedCount - :numberOfRooms) * 5 <= i.totalCount * 4 THEN true
+                        ELSE i.priceDirty
+                    END
                 WHERE i.room.id = :roomId
                   AND i.date BETWEEN :startDate AND :endDate
                   AND i.bookedCount >= :numberOfRooms
@@ -142,7 +227,8 @@ public interface InventoryRepository extends JpaRepository<Inventory, Long> {
     @Modifying
     @Query("""
                 UPDATE Inventory i
-                SET i.reservedCount = i.reservedCount - :numberOfRooms
+                SET i.version = i.version + 1,
+                    i.reservedCount = i.reservedCount - :numberOfRooms
                 WHERE i.room.id = :roomId
                   AND i.date BETWEEN :startDate AND :endDate
                   AND (i.totalCount - i.bookedCount) >= :numberOfRooms
@@ -156,7 +242,8 @@ public interface InventoryRepository extends JpaRepository<Inventory, Long> {
     @Modifying
     @Query("""
                 UPDATE Inventory i
-                SET i.reservedCount = i.reservedCount - :numberOfRooms
+                SET i.version = i.version + 1,
+                    i.reservedCount = i.reservedCount - :numberOfRooms
                 WHERE i.room.id = :roomId
                   AND i.date BETWEEN :startDate AND :endDate
                   AND i.reservedCount >= :numberOfRooms
@@ -167,7 +254,53 @@ public interface InventoryRepository extends JpaRepository<Inventory, Long> {
                        @Param("endDate") LocalDate endDate,
                        @Param("numberOfRooms") int numberOfRooms);
 
-    List<Inventory> findByRoomOrderByDate(Room room);
+    //past days are left out so that only the current and future partitions are scanned.
+    List<Inventory> findByRoomAndDateGreaterThanEqualOrderByDate(Room room, LocalDate fromDate);
+
+    @Query("SELECT MAX(i.date) FROM Inventory i WHERE i.room.id = :roomId AND i.date >= :fromDate")
+    LocalDate findLastDateByRoomId(@Param("roomId") Long roomId, @Param("fromDate") LocalDate fromDate);
+
+    @Query("SELECT MAX(i.date) FROM Inventory i WHERE i.hotel.id = :hotelId AND i.date >= :fromDate")
+    LocalDate findLastDateByHotelId(@Param("hotelId") Long hotelId, @Param("fromDate") LocalDate fromDate);
+
+    //Creates the inventory of a room for every day between startDate and endDate in a single statement.
+    //Days that already have inventory are left untouched, so the call can be repeated safely.
+    @Modifying
+    @Query(value = """
+                INSERT INTO inventory (id, hotel_id, room_id, city, date, booked_count, reserved_count, total_count,
+                                       surge_factor, price, closed, version, price_dirty, created_at, updated_at)
+                SELECT nextval('inventory_seq'), :hotelId, :roomId, :city, CAST(d AS date), 0, 0, :totalCount,
+                       1, :price, false, 0, true, now(), now()
+                FROM generate_series(CAST(:startDate AS date), CAST(:endDate AS date), interval '1 day') AS d
+                ON CONFLICT (hotel_id, room_id, date) DO NOTHING
+            """, nativeQuery = true)
+    int bulkInsertInventory(@Param("hotelId") Long hotelId,
+                            @Param("roomId") Long roomId,
+                            @Param("city") String city,
+                            @Param("totalCount") Integer totalCount,
+                            @Param("price") BigDecimal price,
+                            @Param("startDate") LocalDate startDate,
+                            @Param("endDate") LocalDate endDate);
+
+    @Query("""
+            SELECT new com.example.demo.dto.InventoryAvailabilityDto(i.hotel.id, i.room.id, i.city, i.date,
+                i.totalCount - i.bookedCount - i.reservedCount, i.closed, i.price)
+            FROM Inventory i
+            WHERE i.hotel.id = :hotelId
+                AND i.date >= :fromDate
+            """)
+    List<InventoryAvailabilityDto> findAvailabilityByHotelId(@Param("hotelId") Long hotelId,
+                                                             @Param("fromDate") LocalDate fromDate);
+
+    @Query("""
+            SELECT new com.example.demo.dto.InventoryAvailabilityDto(i.hotel.id, i.room.id, i.city, i.date,
+                i.totalCount - i.bookedCount - i.reservedCount, i.closed, i.price)
+            FROM Inventory i
+            WHERE i.room.id = :roomId
+                AND i.date >= :fromDate
+            """)
+    List<InventoryAvailabilityDto> findAvailabilityByRoomId(@Param("roomId") Long roomId,
+                                                            @Param("fromDate") LocalDate fromDate);
 
     @Query("""
                 SELECT i
@@ -184,8 +317,10 @@ public interface InventoryRepository extends JpaRepository<Inventory, Long> {
     @Modifying
     @Query("""
                 UPDATE Inventory i
-                SET i.surgeFactor = :surgeFactor,
-                    i.closed = :closed
+                SET i.version = i.version + 1,
+                    i.surgeFactor = :surgeFactor,
+                    i.closed = :closed,
+                    i.priceDirty = true
                 WHERE i.room.id = :roomId
                   AND i.date BETWEEN :startDate AND :endDate
             """)
@@ -195,6 +330,78 @@ public interface InventoryRepository extends JpaRepository<Inventory, Long> {
                          @Param("closed") boolean closed,
                          @Param("surgeFactor") BigDecimal surgeFactor);
 
+    //the columns the pricing strategies read, for the pricing simulation.
+    @Query("""
+            SELECT new com.example.demo.dto.InventoryPricingRowDto(i.room.id, i.room.basePrice, i.city, i.date,
+                i.bookedCount, i.totalCount, i.surgeFactor, i.closed, i.price)
+            FROM Inventory i
+            WHERE i.hotel.id = :hotelId
+                AND i.date BETWEEN :startDate AND :endDate
+            ORDER BY i.date, i.room.id
+            """)
+    List<InventoryPricingRowDto> findPricingRows(@Param("hotelId") Long hotelId,
+                                                 @Param("startDate") LocalDate startDate,
+                                                 @Param("endDate") LocalDate endDate);
+
+    //hotels with rows to reprice on or after fromDate, in id order after lastHotelId.
+    @Query("""
+            SELECT DISTINCT i.hotel.id
+            FROM Inventory i
+            WHERE i.priceDirty = true
+                AND i.date >= :fromDate
+                AND i.hotel.id > :lastHotelId
+            ORDER BY i.hotel.id
+            """)
+    List<Long> findHotelIdsWithDirtyInventory(@Param("fromDate") LocalDate fromDate,
+                                              @Param("lastHotelId") Long lastHotelId,
+                                              Limit limit);
+
+    //Locks the rows of the hotel that have to be repriced. Rows locked by a booking right now are skipped
+    //(SKIP LOCKED) and stay dirty for the next run, so repricing never waits for bookings nor loses their changes.
+    @Query("""
+            SELECT i
+            FROM Inventory i
+            WHERE i.hotel.id = :hotelId
+                AND i.priceDirty = true
+                AND i.date >= :fromDate
+            """)
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    List<Inventory> findAndLockDirtyInventory(@Param("hotelId") Long hotelId, @Param("fromDate") LocalDate fromDate);
+
+    //the dirty rows of some room types of a hotel between two dates, locked and skipped like findAndLockDirtyInventory.
+    @Query("""
+            SELECT i
+            FROM Inventory i
+            WHERE i.room.id IN :roomIds
+                AND i.priceDirty = true
+                AND i.date BETWEEN :startDate AND :endDate
+            """)
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    List<Inventory> findAndLockDirtyRoomInventory(@Param("roomIds") Collection<Long> roomIds,
+                                                  @Param("startDate") LocalDate startDate,
+                                                  @Param("endDate") LocalDate endDate);
+
+    List<Inventory> findByHotelAndDateIn(Hotel hotel, Collection<LocalDate> dates);
+
+    @Modifying
+    @Query("UPDATE Inventory i SET i.priceDirty = true WHERE i.room.id = :roomId AND i.date >= :fromDate")
+    int markRoomPricesDirty(@Param("roomId") Long roomId, @Param("fromDate") LocalDate fromDate);
+
+    //every room type of every hotel, for days that moved into a date based pricing window such as urgency.
+    @Modifying
+    @Query("UPDATE Inventory i SET i.priceDirty = true WHERE i.date BETWEEN :startDate AND :endDate")
+    int markPricesDirtyBetween(@Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate);
+
+    @Modifying
+    @Query("UPDATE Inventory i SET i.priceDirty = true WHERE i.date = :date")
+    int markPricesDirtyOn(@Param("date") LocalDate date);
+
+    @Modifying
+    @Query("UPDATE Inventory i SET i.priceDirty = true WHERE i.date = :date AND LOWER(i.city) = LOWER(:city)")
+    int markPricesDirtyOnInCity(@Param("date") LocalDate date, @Param("city") String city);
+
     @Query("""
        SELECT new com.example.demo.dto.RoomPriceDto(
             i.room,
@@ -3,6 +3,9 @@ package com.example.demo.repositories;
 import com.example.demo.entity.User;
 import com.example.demo.entity.enums.Role;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.util.Optional;
 
@@ -11,4 +14,12 @@ public interface UserRepository extends JpaRepository<User, Long> {
 
     boolean existsByRolesContaining(Role role);
 
+    @Query("SELECT u.stripeCustomerId FROM User u WHERE u.id = :userId")
+    Optional<String> findStripeCustomerId(@Param("userId") Long userId);
+
+    //only the first customer stored for a user wins, a customer created concurrently elsewhere is not stored.
+    @Modifying
+    @Query("UPDATE User u SET u.stripeCustomerId = :customerId WHERE u.id = :userId AND u.stripeCustomerId IS NULL")
+    int setStripeCustomerIdIfAbsent(@Param("userId") Long userId, @Param("customerId") String customerId);
+
 }
\ No newline at end of file
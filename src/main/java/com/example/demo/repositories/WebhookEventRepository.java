@@ -0,0 +1,57 @@
+package com.example.demo.repositories;
+
+import com.example.demo.entity.WebhookEvent;
+import com.example.demo.entity.enums.WebhookEventStatus;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface WebhookEventRepository extends JpaRepository<WebhookEvent, String> {
+
+    //Stores the event unless its id is already in the inbox. Returns 0 for a redelivery.
+    @Modifying
+    @Query(value = """
+            INSERT INTO webhook_event (id, type, payload, status, attempts, received_at, next_attempt_at)
+            VALUES (:id, :type, :payload, 'PENDING', 0, :receivedAt, :receivedAt)
+            ON CONFLICT (id) DO NOTHING
+            """, nativeQuery = true)
+    int insertIfAbsent(@Param("id") String id,
+                       @Param("type") String type,
+                       @Param("payload") String payload,
+                       @Param("receivedAt") LocalDateTime receivedAt);
+
+    //The oldest events that are due, locked for the worker's transaction. Events other workers hold are skipped
+    //(SKIP LOCKED), so the workers drain the inbox side by side without waiting for each other.
+    @Query("""
+            SELECT e
+            FROM WebhookEvent e
+            WHERE e.status = :status
+                AND e.nextAttemptAt <= :now
+            ORDER BY e.receivedAt
+            """)
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    List<WebhookEvent> findAndLockDueEvents(@Param("status") WebhookEventStatus status,
+                                            @Param("now") LocalDateTime now,
+                                            Limit limit);
+
+    @Query("SELECT MIN(e.receivedAt) FROM WebhookEvent e WHERE e.status = :status")
+    LocalDateTime findOldestReceivedAt(@Param("status") WebhookEventStatus status);
+
+    long countByStatus(WebhookEventStatus status);
+
+    @Modifying
+    @Query("DELETE FROM WebhookEvent e WHERE e.status = :status AND e.processedAt < :before")
+    int deleteProcessedBefore(@Param("status") WebhookEventStatus status, @Param("before") LocalDateTime before);
+}
@@ -2,6 +2,7 @@ package com.example.demo.security;
 
 import com.example.demo.entity.User;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
 import org.springframework.beans.factory.annotation.Value;
@@ -48,6 +49,10 @@ public class JWTService {
                 .build()
                 .parseSignedClaims(token)
                 .getPayload();
+        //access and refresh tokens carry no audience; anything else, e.g. a price quote, is not a login token.
+        if (claims.getAudience() != null && !claims.getAudience().isEmpty()) {
+            throw new JwtException("Token is not an access or refresh token");
+        }
         return Long.valueOf(claims.getSubject());
     }
 
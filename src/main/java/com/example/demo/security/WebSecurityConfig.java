@@ -38,6 +38,7 @@ public class WebSecurityConfig {
                 .addFilterBefore(jwtAuthFilter, UsernamePasswordAuthenticationFilter.class)
                 .authorizeHttpRequests(auth -> auth
                         .requestMatchers("/admin/makeManager/**").hasRole("ADMIN")
+                        .requestMatchers("/admin/holidays/**").hasRole("ADMIN") // holidays are shared by every hotel.
                         .requestMatchers("/admin/**").hasRole("HOTEL_MANAGER")
                         .requestMatchers("/bookings/**").authenticated()
                         .requestMatchers("/users/**").authenticated()
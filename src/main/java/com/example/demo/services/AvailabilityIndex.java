@@ -0,0 +1,240 @@
+package com.example.demo.services;
+
+import com.example.demo.dto.HotelAvailabilityDto;
+import com.example.demo.dto.InventoryAvailabilityDto;
+import com.example.demo.events.InventoryChangedEvent;
+import com.example.demo.repositories.HotelRepository;
+import com.example.demo.repositories.InventoryRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+//In-memory copy of the free room counts and prices of every active hotel, used to answer hotel searches
+//without running the GROUP BY queries against the database.
+//The index is built at startup, kept in sync from the booking transitions through InventoryChangedEvent,
+//and rebuilt periodically so that changes made by other nodes (or missed events) are picked up.
+//Booking still checks availability against the database, so a slightly stale index only affects search results.
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class AvailabilityIndex {
+
+    private final InventoryRepository inventoryRepository;
+    private final HotelRepository hotelRepository;
+
+    @Value("${search.availability-index.enabled:true}")
+    private boolean enabled;
+
+    // city -> hotel id -> room id -> availability of that room type
+    private final Map<String, Map<Long, Map<Long, RoomAvailability>>> hotelsByCity = new ConcurrentHashMap<>();
+    private final Map<Long, RoomAvailability> roomsById = new ConcurrentHashMap<>();
+
+    private volatile boolean ready = false;
+
+    public boolean isReady() {
+        return enabled && ready;
+    }
+
+    @Scheduled(initialDelay = 0, fixedDelayString = "${search.availability-index.rebuild-interval-ms:300000}")
+    public void rebuild() {
+        if (!enabled) return;
+
+        long start = System.currentTimeMillis();
+        LocalDate today = LocalDate.now();
+        List<Long> hotelIds = hotelRepository.findActiveHotelIds();
+
+        //hotels are swapped in one at a time, so searches keep working while the index is rebuilt.
+        for (Long hotelId : hotelIds) {
+            loadHotel(hotelId, today);
+        }
+
+        Set<Long> activeHotelIds = new HashSet<>(hotelIds);
+        hotelsByCity.values().forEach(hotels -> hotels.keySet().retainAll(activeHotelIds));
+        roomsById.values().removeIf(room -> !activeHotelIds.contains(room.hotelId));
+
+        ready = true;
+        log.info("Availability index rebuilt for {} hotels in {} ms", hotelIds.size(), System.currentTimeMillis() - start);
+    }
+
+    //Returns the hotels of the city having at least one room type with roomsCount free rooms on every date
+    //between startDate and endDate (both inclusive), cheapest first.
+    public List<HotelAvailabilityDto> findAvailableHotels(String city, LocalDate startDate, LocalDate endDate,
+                                                          int roomsCount) {
+        Map<Long, Map<Long, RoomAvailability>> hotels = hotelsByCity.getOrDefault(city, Map.of());
+        long startDay = startDate.toEpochDay();
+        long endDay = endDate.toEpochDay();
+
+        List<HotelAvailabilityDto> result = new ArrayList<>();
+        hotels.forEach((hotelId, rooms) -> {
+            double bestPrice = Double.NaN;
+            for (RoomAvailability room : rooms.values()) {
+                double price = room.averagePriceIfAvailable(startDay, endDay, roomsCount);
+                if (!Double.isNaN(price) && (Double.isNaN(bestPrice) || price < bestPrice)) {
+                    bestPrice = price;
+                }
+            }
+            if (!Double.isNaN(bestPrice)) {
+                result.add(new HotelAvailabilityDto(hotelId, bestPrice));
+            }
+        });
+
+        result.sort(Comparator.comparing(HotelAvailabilityDto::getPrice).thenComparing(HotelAvailabilityDto::getHotelId));
+        return result;
+    }
+
+    //True only when the index knows the room and at least one day of the range has fewer than roomsCount free rooms.
+    //Unknown rooms or dates are never reported as sold out, the database has the final word for those.
+    public boolean isSoldOut(Long roomId, LocalDate startDate, LocalDate endDate, int roomsCount) {
+        if (!isReady()) return false;
+        RoomAvailability room = roomsById.get(roomId);
+        return room != null && room.hasFewerFreeRooms(startDate.toEpochDay(), endDate.toEpochDay(), roomsCount);
+    }
+
+    //Reloads one room from the inventory, for callers that found the index behind the database.
+    public void refreshRoom(Long roomId) {
+        if (!isReady()) return;
+        loadRoom(roomId, LocalDate.now());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onInventoryChanged(InventoryChangedEvent event) {
+        if (!isReady()) return; // the initial build will pick the change up.
+
+        switch (event.getType()) {
+            case RESERVED -> adjustFreeCount(event, -event.getRoomsCount());
+            case CANCELLED, RELEASED -> adjustFreeCount(event, event.getRoomsCount());
+            case CONFIRMED -> {
+                // reserved rooms became booked, the number of free rooms does not change.
+            }
+            case DELETED -> removeRoom(event.getRoomId());
+            default -> {
+                if (event.getRoomId() == null) {
+                    loadHotel(event.getHotelId(), LocalDate.now());
+                } else {
+                    loadRoom(event.getRoomId(), LocalDate.now());
+                }
+            }
+        }
+    }
+
+    private void adjustFreeCount(InventoryChangedEvent event, int delta) {
+        RoomAvailability room = roomsById.get(event.getRoomId());
+        if (room != null) {
+            room.adjust(event.getStartDate().toEpochDay(), event.getEndDate().toEpochDay(), delta);
+        }
+    }
+
+    private void loadHotel(Long hotelId, LocalDate fromDate) {
+        List<InventoryAvailabilityDto> rows = inventoryRepository.findAvailabilityByHotelId(hotelId, fromDate);
+
+        hotelsByCity.values().forEach(hotels -> hotels.remove(hotelId));
+        roomsById.values().removeIf(room -> room.hotelId == hotelId);
+        if (rows.isEmpty()) return;
+
+        Map<Long, RoomAvailability> rooms = new ConcurrentHashMap<>();
+        rows.stream()
+                .collect(Collectors.groupingBy(InventoryAvailabilityDto::getRoomId))
+                .forEach((roomId, roomRows) -> rooms.put(roomId, RoomAvailability.from(hotelId, roomRows)));
+
+        roomsById.putAll(rooms);
+        hotelsByCity.computeIfAbsent(rows.get(0).getCity(), city -> new ConcurrentHashMap<>()).put(hotelId, rooms);
+    }
+
+    private void loadRoom(Long roomId, LocalDate fromDate) {
+        List<InventoryAvailabilityDto> rows = inventoryRepository.findAvailabilityByRoomId(roomId, fromDate);
+        if (rows.isEmpty()) {
+            removeRoom(roomId);
+            return;
+        }
+
+        InventoryAvailabilityDto first = rows.get(0);
+        RoomAvailability room = RoomAvailability.from(first.getHotelId(), rows);
+        roomsById.put(roomId, room);
+        hotelsByCity.computeIfAbsent(first.getCity(), city -> new ConcurrentHashMap<>())
+                .computeIfAbsent(first.getHotelId(), hotelId -> new ConcurrentHashMap<>())
+                .put(roomId, room);
+    }
+
+    private void removeRoom(Long roomId) {
+        RoomAvailability room = roomsById.remove(roomId);
+        if (room == null) return;
+        hotelsByCity.values().forEach(hotels -> {
+            Map<Long, RoomAvailability> rooms = hotels.get(room.hotelId);
+            if (rooms != null) rooms.remove(roomId);
+        });
+    }
+
+    //Free rooms and price of one room type, one slot per day starting at firstDay (epoch day).
+    //A free count of -1 means that there is no open inventory for that day.
+    static final class RoomAvailability {
+
+        private final long hotelId;
+        private final long firstDay;
+        private final int[] free;
+        private final double[] price;
+
+        private RoomAvailability(long hotelId, long firstDay, int days) {
+            this.hotelId = hotelId;
+            this.firstDay = firstDay;
+            this.free = new int[days];
+            this.price = new double[days];
+            Arrays.fill(free, -1);
+        }
+
+        static RoomAvailability from(long hotelId, List<InventoryAvailabilityDto> rows) {
+            long firstDay = Long.MAX_VALUE;
+            long lastDay = Long.MIN_VALUE;
+            for (InventoryAvailabilityDto row : rows) {
+                firstDay = Math.min(firstDay, row.getDate().toEpochDay());
+                lastDay = Math.max(lastDay, row.getDate().toEpochDay());
+            }
+
+            RoomAvailability room = new RoomAvailability(hotelId, firstDay, (int) (lastDay - firstDay + 1));
+            for (InventoryAvailabilityDto row : rows) {
+                int slot = (int) (row.getDate().toEpochDay() - firstDay);
+                room.free[slot] = Boolean.TRUE.equals(row.getClosed()) ? -1 : row.getFreeCount();
+                room.price[slot] = row.getPrice().doubleValue();
+            }
+            return room;
+        }
+
+        synchronized void adjust(long startDay, long endDay, int delta) {
+            int from = (int) Math.max(0, startDay - firstDay);
+            int to = (int) Math.min(free.length - 1, endDay - firstDay);
+            for (int slot = from; slot <= to; slot++) {
+                if (free[slot] >= 0) {
+                    free[slot] = Math.max(0, free[slot] + delta);
+                }
+            }
+        }
+
+        synchronized boolean hasFewerFreeRooms(long startDay, long endDay, int roomsCount) {
+            if (startDay < firstDay || endDay - firstDay >= free.length) return false;
+
+            for (int slot = (int) (startDay - firstDay); slot <= endDay - firstDay; slot++) {
+                if (free[slot] < roomsCount) return true;
+            }
+            return false;
+        }
+
+        //average nightly price if the room type has roomsCount free rooms on every day of the range, NaN otherwise.
+        synchronized double averagePriceIfAvailable(long startDay, long endDay, int roomsCount) {
+            if (startDay < firstDay || endDay - firstDay >= free.length) return Double.NaN;
+
+            double total = 0;
+            for (int slot = (int) (startDay - firstDay); slot <= endDay - firstDay; slot++) {
+                if (free[slot] < roomsCount) return Double.NaN;
+                total += price[slot];
+            }
+            return total / (endDay - startDay + 1);
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package com.example.demo.services;
+
+import com.example.demo.dto.BookingRequest;
+import com.example.demo.events.InventoryChangedEvent;
+import com.example.demo.exceptions.BookingOverloadedException;
+import com.example.demo.repositories.InventoryRepository;
+import com.example.demo.util.TtlLruCache;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+//Admission control in front of initialiseBooking. A flash sale on one room type would otherwise open one transaction
+//per request, all of them waiting on the same inventory row locks and holding connections other hotels need.
+//Rooms are mapped onto a fixed number of semaphore stripes; each stripe lets permits-per-room bookings work on the
+//database at the same time and the others wait (up to max-wait-ms) in memory, without a connection.
+//Requests for a room the availability index believes to be sold out are rejected before they wait at all, once a
+//lock free count on the inventory confirmed it: the index is only a hint, it can lag behind other nodes' bookings.
+//The answer of that count is kept for sold-out-cache-ms per room, dates and rooms count, so a flash sale on a sold out
+//room costs one query per interval instead of one per request (and the check after the wait reuses it). When the
+//database contradicts the index, the room is reloaded into the index.
+//Meters: booking.admission.waiting (gauge), booking.admission.wait (timer), booking.admission.rejected and
+//booking.admission.index.stale (counters, the latter for sold out answers of the index the database contradicted).
+@Service
+@Slf4j
+public class BookingAdmissionService {
+
+    private final AvailabilityIndex availabilityIndex;
+    private final InventoryRepository inventoryRepository;
+    private final Semaphore[] stripes;
+    private final long maxWaitMillis;
+    private final boolean failFast;
+    private final TtlLruCache<SoldOutKey, Boolean> confirmedSoldOut;
+
+    private final AtomicInteger waiting = new AtomicInteger();
+    private final Timer waitTimer;
+    private final Counter soldOutRejections;
+    private final Counter overloadedRejections;
+    private final Counter staleIndexAnswers;
+
+    public BookingAdmissionService(AvailabilityIndex availabilityIndex,
+                                   InventoryRepository inventoryRepository,
+                                   MeterRegistry meterRegistry,
+                                   @Value("${booking.admission.stripes:256}") int stripeCount,
+                                   @Value("${booking.admission.permits-per-room:4}") int permitsPerRoom,
+                                   @Value("${booking.admission.max-wait-ms:2000}") long maxWaitMillis,
+                                   @Value("${booking.admission.fail-fast:true}") boolean failFast,
+                                   @Value("${booking.admission.sold-out-cache-ms:1000}") long soldOutCacheMillis) {
+        this.availabilityIndex = availabilityIndex;
+        this.inventoryRepository = inventoryRepository;
+        this.maxWaitMillis = maxWaitMillis;
+        this.failFast = failFast;
+        this.confirmedSoldOut = new TtlLruCache<>(10_000, soldOutCacheMillis);
+        this.stripes = new Semaphore[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new Semaphore(permitsPerRoom, true); // fair, so the longest waiting request goes first.
+        }
+
+        Gauge.builder("booking.admission.waiting", waiting, AtomicInteger::get).register(meterRegistry);
+        this.waitTimer = Timer.builder("booking.admission.wait").register(meterRegistry);
+        this.soldOutRejections = Counter.builder("booking.admission.rejected").tag("reason", "sold-out")
+                .register(meterRegistry);
+        this.overloadedRejections = Counter.builder("booking.admission.rejected").tag("reason", "overloaded")
+                .register(meterRegistry);
+        this.staleIndexAnswers = Counter.builder("booking.admission.index.stale").register(meterRegistry);
+    }
+
+    public <T> T admit(BookingRequest bookingRequest, Supplier<T> booking) {
+        Long roomId = bookingRequest.getRoomId();
+        rejectIfSoldOut(bookingRequest);
+
+        Semaphore stripe = stripes[Math.floorMod(roomId.hashCode(), stripes.length)];
+        waiting.incrementAndGet();
+        long start = System.nanoTime();
+        boolean acquired;
+        try {
+            acquired = stripe.tryAcquire(maxWaitMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        } finally {
+            waiting.decrementAndGet();
+            waitTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+
+        if (!acquired) {
+            overloadedRejections.increment();
+            log.debug("No admission slot for room {} within {} ms", roomId, maxWaitMillis);
+            throw new BookingOverloadedException("Too many bookings for this room right now, please try again");
+        }
+
+        try {
+            // the room may have sold out while this request was waiting.
+            rejectIfSoldOut(bookingRequest);
+            return booking.get();
+        } finally {
+            stripe.release();
+        }
+    }
+
+    private void rejectIfSoldOut(BookingRequest bookingRequest) {
+        if (!failFast || !availabilityIndex.isSoldOut(bookingRequest.getRoomId(), bookingRequest.getCheckInDate(),
+                bookingRequest.getCheckOutDate(), bookingRequest.getRoomsCount())) {
+            return;
+        }
+
+        SoldOutKey key = new SoldOutKey(bookingRequest.getRoomId(), bookingRequest.getCheckInDate(),
+                bookingRequest.getCheckOutDate(), bookingRequest.getRoomsCount());
+        Boolean soldOut = confirmedSoldOut.get(key);
+        if (soldOut == null) {
+            long nights = ChronoUnit.DAYS.between(key.checkInDate(), key.checkOutDate()) + 1;
+            long availableDays = inventoryRepository.countAvailableDays(key.roomId(), key.checkInDate(),
+                    key.checkOutDate(), key.roomsCount());
+            soldOut = availableDays != nights;
+            confirmedSoldOut.put(key, soldOut);
+            if (!soldOut) {
+                staleIndexAnswers.increment();
+                log.debug("Availability index reported room {} sold out, the inventory has rooms", key.roomId());
+                availabilityIndex.refreshRoom(key.roomId());
+            }
+        }
+        if (!soldOut) {
+            // the index is behind, the booking itself decides.
+            return;
+        }
+        soldOutRejections.increment();
+        throw new IllegalStateException("Room is not available anymore");
+    }
+
+    //Rooms freed on this node are bookable again right away, not after the cached answer expired.
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onInventoryChanged(InventoryChangedEvent event) {
+        switch (event.getType()) {
+            case RESERVED, CONFIRMED -> {
+                // no rooms were freed.
+            }
+            default -> confirmedSoldOut.removeIf(key -> event.getRoomId() == null
+                    || key.roomId().equals(event.getRoomId()));
+        }
+    }
+
+    private record SoldOutKey(Long roomId, LocalDate checkInDate, LocalDate checkOutDate, int roomsCount) {
+    }
+}
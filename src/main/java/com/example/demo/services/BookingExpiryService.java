@@ -3,11 +3,14 @@ package com.example.demo.services;
 
 import com.example.demo.entity.Booking;
 import com.example.demo.entity.enums.BookingStatus;
+import com.example.demo.entity.enums.InventoryChangeType;
+import com.example.demo.events.InventoryChangedEvent;
 import com.example.demo.repositories.BookingRepository;
 import com.example.demo.repositories.InventoryRepository;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.repository.query.Param;
 import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.scheduling.annotation.Scheduled;
@@ -27,6 +30,8 @@ public class BookingExpiryService {
 
    private final InventoryRepository inventoryRepository;
 
+   private final ApplicationEventPublisher eventPublisher;
+
     @Scheduled(cron = "0 * * * * *")
     public void expireBookings() {
       //get the expired bookings first
@@ -47,6 +52,10 @@ public class BookingExpiryService {
 
             booking.setBookingStatus(BookingStatus.EXPIRED);
 
+            eventPublisher.publishEvent(new InventoryChangedEvent(InventoryChangeType.RELEASED, booking.getHotel().getId(),
+                    booking.getRoom().getId(), booking.getHotel().getCity(), booking.getCheckInDate(),
+                    booking.getCheckOutDate(), booking.getRoomsCount()));
+
             log.info("Booking with id: " + booking.getId() + " expired.");
 
         }
@@ -2,6 +2,7 @@ package com.example.demo.services;
 
 import com.example.demo.dto.BookingDto;
 import com.example.demo.dto.BookingRequest;
+import com.example.demo.dto.CursorPageDto;
 import com.example.demo.dto.GuestDto;
 import com.example.demo.dto.HotelReportDto;
 import com.example.demo.entity.enums.BookingStatus;
@@ -20,6 +21,8 @@ public interface BookingService {
 
     void capturePayment(Event event);
 
+    void capturePayments(List<Event> events);
+
     void cancelBooking(Long bookingId);
 
     BookingStatus getBookingStatus(Long bookingId);
@@ -30,5 +33,9 @@ public interface BookingService {
 
     List<BookingDto> getMyBookings();
 
+    CursorPageDto<BookingDto> getAllBookingsByHotelId(Long hotelId, String cursor, int size);
+
+    CursorPageDto<BookingDto> getMyBookings(String cursor, int size);
+
 
 }
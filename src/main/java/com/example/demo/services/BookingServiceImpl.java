@@ -2,14 +2,20 @@ package com.example.demo.services;
 
 import com.example.demo.dto.BookingDto;
 import com.example.demo.dto.BookingRequest;
+import com.example.demo.dto.CheckoutSessionDto;
+import com.example.demo.dto.CursorPageDto;
 import com.example.demo.dto.GuestDto;
 import com.example.demo.dto.HotelReportDto;
 import com.example.demo.entity.*;
 import com.example.demo.entity.enums.BookingStatus;
+import com.example.demo.entity.enums.InventoryChangeType;
+import com.example.demo.events.InventoryChangedEvent;
+import com.example.demo.exceptions.ReservationConflictException;
 import com.example.demo.exceptions.ResourceNotFoundException;
 import com.example.demo.exceptions.UnAuthorisedException;
 import com.example.demo.repositories.*;
 import com.example.demo.strategy.PricingService;
+import com.example.demo.util.CursorUtils;
 import com.stripe.exception.StripeException;
 import com.stripe.model.checkout.Session;
 import com.stripe.model.Refund;
@@ -18,11 +24,15 @@ import jakarta.transaction.Transactional;
 import com.stripe.model.Event;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Hibernate;
 import org.modelmapper.ModelMapper;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.repository.query.Param;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.security.access.AccessDeniedException;
 import java.math.BigDecimal;
 
@@ -31,7 +41,10 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.time.temporal.ChronoUnit;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.stream.Collectors;
 
 import static com.example.demo.util.AppUtils.getCurrentUser;
@@ -50,49 +63,85 @@ public class BookingServiceImpl implements BookingService {
     private final InventoryRepository inventoryRepository;
     private final CheckoutService checkoutService;
     private final PricingService pricingService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final InventoryReservationService inventoryReservationService;
+    private final TransactionTemplate transactionTemplate;
+    private final BookingAdmissionService bookingAdmissionService;
+    private final PriceQuoteService priceQuoteService;
 
     @Value("${frontend.url}")
     private String frontendUrl;
 
+    @Value("${booking.reservation.max-attempts:5}")
+    private int reservationMaxAttempts;
+
+    @Value("${booking.reservation.backoff-ms:20}")
+    private long reservationBackoffMillis;
+
+    @Value("${booking.payment-start.timeout-ms:60000}")
+    private long paymentStartTimeoutMillis;
+
     @Override
-    @Transactional
     //after 10 minutes, when the booking fails automatically, we take the rooms back to the available pool.
+    //Not @Transactional: every attempt runs in a transaction of its own, so that a reservation that lost an
+    //optimistic race can be retried from scratch after a short random pause.
     public BookingDto initialiseBooking(BookingRequest bookingRequest) {//reserve the rooms for 10 minutes so that the
         //person booking gets time to book.
 
         log.info("Initialising booking for hotel : {}, room: {}, date {}-{}", bookingRequest.getHotelId(),
                 bookingRequest.getRoomId(), bookingRequest.getCheckInDate(), bookingRequest.getCheckOutDate());
 
+        //limits how many bookings of the same room hit the database at once, before any connection is taken.
+        return bookingAdmissionService.admit(bookingRequest, () -> initialiseBookingWithRetry(bookingRequest));
+    }
+
+    private BookingDto initialiseBookingWithRetry(BookingRequest bookingRequest) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transactionTemplate.execute(status -> reserveRoomsAndCreateBooking(bookingRequest));
+            } catch (ReservationConflictException e) {
+                if (attempt >= reservationMaxAttempts) {
+                    log.warn("Giving up on booking room {} after {} attempts", bookingRequest.getRoomId(), attempt);
+                    throw new ReservationConflictException("Room is in high demand right now, please try again");
+                }
+                log.debug("Reservation attempt {} for room {} conflicted: {}", attempt, bookingRequest.getRoomId(),
+                        e.getMessage());
+                backOff(attempt);
+            }
+        }
+    }
+
+    private BookingDto reserveRoomsAndCreateBooking(BookingRequest bookingRequest) {
         Hotel hotel = hotelRepository.findById(bookingRequest.getHotelId()).orElseThrow(() ->
                 new ResourceNotFoundException("Hotel not found with id: "+bookingRequest.getHotelId()));
 
         Room room = roomRepository.findById(bookingRequest.getRoomId()).orElseThrow(() ->
                 new ResourceNotFoundException("Room not found with id: "+bookingRequest.getRoomId()));
 
-        //for a particular room id, check in date, check out date, and the number of rooms available between
-        // these dates is checked and the room rows or the inventory list is returned.
-        List<Inventory> inventoryList = inventoryRepository.findAndLockAvailableInventory(room.getId(),
+        //a quote is checked before anything is reserved, an expired or foreign one is refused right away.
+        PriceQuoteService.PriceQuote quote = bookingRequest.getQuoteToken() == null ? null
+                : priceQuoteService.getQuote(bookingRequest.getQuoteToken(), hotel, bookingRequest);
+
+        //reserves the rooms for every day between the check in and check out dates and returns the inventory rows,
+        //or throws if one of the days does not have enough free rooms.
+        List<Inventory> inventoryList = inventoryReservationService.reserve(hotel, room.getId(),
                 bookingRequest.getCheckInDate(), bookingRequest.getCheckOutDate(), bookingRequest.getRoomsCount());
-        // calculated the days we want to book for.
-        long daysCount = ChronoUnit.DAYS.between(bookingRequest.getCheckInDate(), bookingRequest.getCheckOutDate())+1;
 
-        //here we check if we have the inventory for the required number of days.
-        if (inventoryList.size() != daysCount) {
-            throw new IllegalStateException("Room is not available anymore");
+        //the hotel may have been repriced since the quote, refusing it rolls the reservation back.
+        if (quote != null) {
+            priceQuoteService.checkPrices(quote, inventoryList);
         }
 
-        // Reserve the rooms and update the inventory.
-        inventoryRepository.initBooking(room.getId(), bookingRequest.getCheckInDate(), bookingRequest.getCheckOutDate(),
-                bookingRequest.getRoomsCount());
-
-
         // Create the Booking
 
         //calculating the dynamic price of the booking.
 
         //The dynamic price of rooms is calculated for each day and then summed.
 
-        BigDecimal priceForOneRoom = pricingService.calculateTotalPrice(inventoryList);
+        //with a quote the user pays the prices they were shown, and nothing has to be priced here.
+        BigDecimal priceForOneRoom = quote != null
+                ? quote.prices().stream().reduce(BigDecimal.ZERO, BigDecimal::add)
+                : pricingService.calculateTotalPrice(inventoryList);
         BigDecimal totalPrice = priceForOneRoom.multiply(BigDecimal.valueOf(bookingRequest.getRoomsCount()));
 
         Booking booking = Booking.builder()
@@ -107,9 +156,22 @@ public class BookingServiceImpl implements BookingService {
                 .build();
 
         booking = bookingRepository.save(booking);
+
+        publishInventoryChange(InventoryChangeType.RESERVED, booking);
         return modelMapper.map(booking, BookingDto.class);
     }
 
+    //full jitter: a random pause between 0 and backoff * 2^(attempt - 1), so that retrying bookings spread out.
+    private void backOff(int attempt) {
+        long maxDelay = reservationBackoffMillis << Math.min(attempt - 1, 10);
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(maxDelay + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ReservationConflictException("Booking was interrupted, please try again");
+        }
+    }
+
     //The user trying to add guests should be the one who owns the booking.
     //before adding new guests, we must check if the booking has expired or not.
     //You get the time of creation of the booking. add 10 minutes to it and see if the
@@ -163,67 +225,154 @@ public class BookingServiceImpl implements BookingService {
     }
 
 
+    //Not @Transactional: creating the Stripe checkout session takes remote calls, which must neither hold the booking
+    //lock nor a database connection. A short transaction checks the booking and moves it to PAYMENT_STARTING, the
+    //session is created outside of any transaction, and a second short transaction stores it with the booking.
     @Override
-    @Transactional
     public String initiatePayments(Long bookingId) {
-        Booking booking = bookingRepository.findById(bookingId).orElseThrow(
-                () -> new ResourceNotFoundException("Booking not found with id: "+bookingId)
-        );
         User user = getCurrentUser();
-        if (!user.equals(booking.getUser())) {
-            throw new UnAuthorisedException("Booking does not belong to this user with id: "+user.getId());
+        PaymentStart paymentStart = transactionTemplate.execute(status -> startPayment(bookingId, user));
+
+        //we get the sessionUrl and that is what the front end redirects the user to.
+        // Now the stripe server handle the check out logic
+        //upon successful checkout, Strip redirects user to the success url
+        // otherwise the user is redirected to the failure url.
+        CheckoutSessionDto session;
+        try {
+            session = checkoutService.createCheckoutSession(paymentStart.booking(),
+                    frontendUrl+"/payments/" +bookingId +"/status",
+                    frontendUrl+"/payments/" +bookingId +"/status");
+        } catch (RuntimeException e) {
+            transactionTemplate.executeWithoutResult(status -> abortPaymentStart(bookingId, paymentStart.previousStatus()));
+            throw e;
         }
 
+        transactionTemplate.executeWithoutResult(status -> storePaymentSession(bookingId, session));
+        return session.getUrl();
+    }
+
+    private PaymentStart startPayment(Long bookingId, User user) {
         //The booking has been locked to avoid the case where it is detected that the booking has not expired
         //and then the cron job expires the booking and frees up inventory. (Concurrency Control)
-
-        bookingRepository.lockBooking(booking.getId());
+        //Locking before anything else reads the booking makes sure its status is read from the locked row.
+        Booking booking = bookingRepository.lockBooking(bookingId).orElseThrow(
+                () -> new ResourceNotFoundException("Booking not found with id: "+bookingId)
+        );
+        if (!user.equals(booking.getUser())) {
+            throw new UnAuthorisedException("Booking does not belong to this user with id: "+user.getId());
+        }
 
         if (hasBookingExpired(booking)) {
 
             throw new IllegalStateException("Booking has already expired");
         }
 
-        //we get the sessionUrl and that is what the front end redirects the user to.
-        // Now the stripe server handle the check out logic
-        //upon successful checkout, Strip redirects user to the success url
-        // otherwise the user is redirected to the failure url.
-        String sessionUrl = checkoutService.getCheckoutSession(booking,
-                frontendUrl+"/payments/" +bookingId +"/status",
-                frontendUrl+"/payments/" +bookingId +"/status");
+        BookingStatus previousStatus = booking.getBookingStatus();
+        switch (previousStatus) {
+            case RESERVED, GUESTS_ADDED, PAYMENTS_PENDING -> {
+                // a pending payment can be started again, e.g. after the checkout page was closed.
+            }
+            case PAYMENT_STARTING -> {
+                // an attempt that is older than the Stripe timeouts has died before it could finish or roll back.
+                if (booking.getUpdatedAt().isAfter(LocalDateTime.now().minusNanos(paymentStartTimeoutMillis * 1_000_000))) {
+                    throw new IllegalStateException("The payment of this booking is already being started");
+                }
+            }
+            default -> throw new IllegalStateException("Payment cannot be started for a booking that is " + previousStatus);
+        }
 
+        if (previousStatus == BookingStatus.PAYMENT_STARTING) {
+            // the abandoned attempt stored where it started from; bookings started before that was stored have none.
+            previousStatus = booking.getStatusBeforePayment() != null ? booking.getStatusBeforePayment()
+                    : booking.getPaymentSessionId() != null ? BookingStatus.PAYMENTS_PENDING : BookingStatus.GUESTS_ADDED;
+        }
+        booking.setStatusBeforePayment(previousStatus);
+        booking.setBookingStatus(BookingStatus.PAYMENT_STARTING);
+        bookingRepository.save(booking);
+        // the session is created after this transaction, when the lazy associations can no longer be loaded.
+        Hibernate.initialize(booking.getHotel());
+        Hibernate.initialize(booking.getRoom());
+        return new PaymentStart(booking, previousStatus);
+    }
+
+    private void storePaymentSession(Long bookingId, CheckoutSessionDto session) {
+        Booking booking = bookingRepository.lockBooking(bookingId).orElseThrow(
+                () -> new ResourceNotFoundException("Booking not found with id: "+bookingId)
+        );
+        if (booking.getBookingStatus() != BookingStatus.PAYMENT_STARTING) {
+            // the session expires unpaid on Stripe's side.
+            throw new IllegalStateException("Booking changed while its payment was being started");
+        }
+        // we are storing the session id with the booking entity.
+        booking.setPaymentSessionId(session.getSessionId());
         booking.setBookingStatus(BookingStatus.PAYMENTS_PENDING);
+        booking.setStatusBeforePayment(null);
         bookingRepository.save(booking);
+    }
+
+    //Stripe failed, the booking goes back to where it was so the payment can be started again.
+    private void abortPaymentStart(Long bookingId, BookingStatus previousStatus) {
+        bookingRepository.lockBooking(bookingId)
+                .filter(booking -> booking.getBookingStatus() == BookingStatus.PAYMENT_STARTING)
+                .ifPresent(booking -> {
+                    booking.setBookingStatus(previousStatus);
+                    booking.setStatusBeforePayment(null);
+                    bookingRepository.save(booking);
+                });
+    }
 
-        return sessionUrl;
+    private record PaymentStart(Booking booking, BookingStatus previousStatus) {
     }
 
     @Override
     @Transactional
     public void capturePayment(Event event) {
-        if ("checkout.session.completed".equals(event.getType())) {
-            Session session = (Session) event.getDataObjectDeserializer().getObject().orElse(null);
-            if (session == null) return;
+        capturePayments(List.of(event));
+    }
 
-            String sessionId = session.getId();
-            Booking booking =
-                    bookingRepository.findByPaymentSessionId(sessionId).orElseThrow(() ->
-                            new ResourceNotFoundException("Booking not found for session ID: "+sessionId));
+    //Confirms every booking paid in a batch of webhook events in one transaction. The bookings are confirmed in the
+    //order of their room and dates, so two batches that lock the inventory of the same days always lock it in the
+    //same order and cannot deadlock.
+    @Override
+    @Transactional
+    public void capturePayments(List<Event> events) {
+        Set<String> sessionIds = new LinkedHashSet<>();
+        for (Event event : events) {
+            if ("checkout.session.completed".equals(event.getType())) {
+                Session session = (Session) event.getDataObjectDeserializer().getObject().orElse(null);
+                if (session != null) sessionIds.add(session.getId());
+            } else {
+                log.warn("Unhandled event type: {}", event.getType());
+            }
+        }
+        if (sessionIds.isEmpty()) return;
 
-            booking.setBookingStatus(BookingStatus.CONFIRMED);
-            bookingRepository.save(booking);
+        List<Booking> bookings = bookingRepository.findByPaymentSessionIdInLockOrder(sessionIds);
+        if (bookings.size() != sessionIds.size()) {
+            bookings.forEach(booking -> sessionIds.remove(booking.getPaymentSessionId()));
+            throw new ResourceNotFoundException("Booking not found for session ID: "+sessionIds);
+        }
+        bookings.forEach(this::confirmPaidBooking);
+    }
 
-            //Concurrency control
-            inventoryRepository.findAndLockReservedInventory(booking.getRoom().getId(), booking.getCheckInDate(),
-                    booking.getCheckOutDate(), booking.getRoomsCount());
+    private void confirmPaidBooking(Booking booking) {
+        if (booking.getBookingStatus() == BookingStatus.CONFIRMED) {
+            log.info("Booking with ID: {} is already confirmed", booking.getId());
+            return;
+        }
 
-            inventoryRepository.confirmBooking(booking.getRoom().getId(), booking.getCheckInDate(),
-                    booking.getCheckOutDate(), booking.getRoomsCount());
+        booking.setBookingStatus(BookingStatus.CONFIRMED);
+        bookingRepository.save(booking);
 
-            log.info("Successfully confirmed the booking for Booking ID: {}", booking.getId());
-        } else {
-            log.warn("Unhandled event type: {}", event.getType());
-        }
+        //Concurrency control
+        inventoryRepository.findAndLockReservedInventory(booking.getRoom().getId(), booking.getCheckInDate(),
+                booking.getCheckOutDate(), booking.getRoomsCount());
+
+        inventoryRepository.confirmBooking(booking.getRoom().getId(), booking.getCheckInDate(),
+                booking.getCheckOutDate(), booking.getRoomsCount());
+
+        publishInventoryChange(InventoryChangeType.CONFIRMED, booking);
+        log.info("Successfully confirmed the booking for Booking ID: {}", booking.getId());
     }
 
     //if the payment has been made, the booking can be cancelled and the user gets refund.
@@ -257,6 +406,8 @@ public class BookingServiceImpl implements BookingService {
             inventoryRepository.cancelBooking(booking.getRoom().getId(), booking.getCheckInDate(),
                     booking.getCheckOutDate(), booking.getRoomsCount());
 
+            publishInventoryChange(InventoryChangeType.CANCELLED, booking);
+
             // handle the refund
             try {
                 Session session = Session.retrieve(booking.getPaymentSessionId());
@@ -277,9 +428,16 @@ public class BookingServiceImpl implements BookingService {
                     booking.getCheckOutDate(), booking.getRoomsCount());
             inventoryRepository.cancelPaymentPendingBooking(booking.getRoom().getId(), booking.getCheckInDate(),
                     booking.getCheckOutDate(), booking.getRoomsCount());
+
+            publishInventoryChange(InventoryChangeType.RELEASED, booking);
         }
     }
 
+    private void publishInventoryChange(InventoryChangeType type, Booking booking) {
+        eventPublisher.publishEvent(new InventoryChangedEvent(type, booking.getHotel().getId(), booking.getRoom().getId(),
+                booking.getHotel().getCity(), booking.getCheckInDate(), booking.getCheckOutDate(), booking.getRoomsCount()));
+    }
+
 
 @Override
 public BookingStatus getBookingStatus(Long bookingId) {
@@ -315,6 +473,58 @@ public List<BookingDto> getAllBookingsByHotelId(Long hotelId) {
             .collect(Collectors.toList());
 }
 
+@Override
+public CursorPageDto<BookingDto> getAllBookingsByHotelId(Long hotelId, String cursor, int size) {
+    Hotel hotel = hotelRepository.findById(hotelId).orElseThrow(() -> new ResourceNotFoundException("Hotel not " +
+            "found with ID: "+hotelId));
+    User user = getCurrentUser();
+
+    log.info("Getting bookings page for the hotel with ID: {}", hotelId);
+
+    if(!user.equals(hotel.getOwner())) throw new AccessDeniedException("You are not the owner of hotel with id: "+hotelId);
+
+    List<Booking> bookings;
+    if (cursor == null) {
+        bookings = bookingRepository.findByHotelOrderByCreatedAtDescIdDesc(hotel, Limit.of(size + 1));
+    } else {
+        Object[] lastBooking = CursorUtils.decode(cursor, LocalDateTime.class, Long.class);
+        bookings = bookingRepository.findByHotelBefore(hotel, (LocalDateTime) lastBooking[0],
+                (Long) lastBooking[1], Limit.of(size + 1));
+    }
+    return toCursorPage(bookings, size);
+}
+
+@Override
+public CursorPageDto<BookingDto> getMyBookings(String cursor, int size) {
+    User user = getCurrentUser();
+
+    List<Booking> bookings;
+    if (cursor == null) {
+        bookings = bookingRepository.findByUserOrderByCreatedAtDescIdDesc(user, Limit.of(size + 1));
+    } else {
+        Object[] lastBooking = CursorUtils.decode(cursor, LocalDateTime.class, Long.class);
+        bookings = bookingRepository.findByUserBefore(user, (LocalDateTime) lastBooking[0],
+                (Long) lastBooking[1], Limit.of(size + 1));
+    }
+    return toCursorPage(bookings, size);
+}
+
+//one extra booking is always fetched, it tells us whether a next page exists without running a count query.
+private CursorPageDto<BookingDto> toCursorPage(List<Booking> bookings, int size) {
+    boolean hasNext = bookings.size() > size;
+    List<Booking> page = hasNext ? bookings.subList(0, size) : bookings;
+
+    List<BookingDto> content = page.stream()
+            .map((element) -> modelMapper.map(element, BookingDto.class))
+            .collect(Collectors.toList());
+
+    if (!hasNext) {
+        return new CursorPageDto<>(content, null, false);
+    }
+    Booking last = page.get(page.size() - 1);
+    return new CursorPageDto<>(content, CursorUtils.encode(last.getCreatedAt(), last.getId()), true);
+}
+
 //checks whether the user owns the hotel and then allows the user to get the revenue.
 @Override
 public HotelReportDto getHotelReport(Long hotelId, LocalDate startDate, LocalDate endDate) {
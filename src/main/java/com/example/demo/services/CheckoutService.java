@@ -1,9 +1,11 @@
 package com.example.demo.services;
 
+import com.example.demo.dto.CheckoutSessionDto;
 import com.example.demo.entity.Booking;
 
 public interface CheckoutService {
 
-    String getCheckoutSession(Booking booking, String successUrl, String failureUrl);
+    //Calls Stripe, so it must not be called inside a transaction. The booking's hotel and room have to be loaded.
+    CheckoutSessionDto createCheckoutSession(Booking booking, String successUrl, String failureUrl);
 
 }
@@ -1,45 +1,93 @@
 package com.example.demo.services;
 
+import com.example.demo.dto.CheckoutSessionDto;
 import com.example.demo.entity.Booking;
 import com.example.demo.entity.User;
-import com.example.demo.repositories.BookingRepository;
+import com.example.demo.exceptions.PaymentProviderUnavailableException;
+import com.stripe.exception.ApiConnectionException;
 import com.stripe.exception.StripeException;
-import com.stripe.model.Customer;
 import com.stripe.model.checkout.Session;
-import com.stripe.param.CustomerCreateParams;
 import com.stripe.param.checkout.SessionCreateParams;
-import lombok.RequiredArgsConstructor;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
 
+//Creates the Stripe checkout sessions. Stripe calls are made outside of any transaction, with the timeouts of
+//StripeConfig, and behind a bulkhead: at most stripe.checkout.max-concurrent sessions are being created at a time,
+//further requests wait up to stripe.checkout.max-wait-ms and are then rejected, so a slow Stripe can only tie up
+//that many request threads.
+//Meters: stripe.checkout.duration{outcome} (timer), stripe.checkout.rejected (counter).
 @Service
-@RequiredArgsConstructor
 @Slf4j
 public class CheckoutServiceImpl implements CheckoutService{
 
-    private final BookingRepository bookingRepository;
+    private final StripeCustomerService stripeCustomerService;
+    private final Semaphore bulkhead;
+    private final long maxWaitMillis;
+
+    private final MeterRegistry meterRegistry;
+    private final Counter rejections;
+
+    public CheckoutServiceImpl(StripeCustomerService stripeCustomerService,
+                               MeterRegistry meterRegistry,
+                               @Value("${stripe.checkout.max-concurrent:20}") int maxConcurrent,
+                               @Value("${stripe.checkout.max-wait-ms:500}") long maxWaitMillis) {
+        this.stripeCustomerService = stripeCustomerService;
+        this.bulkhead = new Semaphore(maxConcurrent, true);
+        this.maxWaitMillis = maxWaitMillis;
+        this.meterRegistry = meterRegistry;
+        this.rejections = Counter.builder("stripe.checkout.rejected").register(meterRegistry);
+    }
 
     @Override
-    public String getCheckoutSession(Booking booking, String successUrl, String failureUrl) {
+    public CheckoutSessionDto createCheckoutSession(Booking booking, String successUrl, String failureUrl) {
+        boolean acquired;
+        try {
+            acquired = bulkhead.tryAcquire(maxWaitMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        }
+        if (!acquired) {
+            rejections.increment();
+            throw new PaymentProviderUnavailableException("Too many payments are being started right now, please try again");
+        }
+
+        long start = System.nanoTime();
+        String outcome = "failed";
+        try {
+            CheckoutSessionDto session = createSession(booking, successUrl, failureUrl);
+            outcome = "created";
+            return session;
+        } finally {
+            bulkhead.release();
+            Timer.builder("stripe.checkout.duration").tag("outcome", outcome).register(meterRegistry)
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private CheckoutSessionDto createSession(Booking booking, String successUrl, String failureUrl) {
         log.info("Creating session for booking with ID: {}", booking.getId());
         User user = (User) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
 
         try {
-            CustomerCreateParams customerParams = CustomerCreateParams.builder()
-                    .setName(user.getName())
-                    .setEmail(user.getEmail())
-                    .build();
-            Customer customer = Customer.create(customerParams);
+            // created with the user's first checkout, reused afterwards.
+            String customerId = stripeCustomerService.getOrCreateCustomerId(user);
             //using this SessionCreate Params we add the details about the product, the amount to be paid.
             // We set the mode to Payment and demand that the user must fill in the address details.
             SessionCreateParams sessionParams = SessionCreateParams.builder()
                     .setMode(SessionCreateParams.Mode.PAYMENT)
                     .setBillingAddressCollection(SessionCreateParams.BillingAddressCollection.REQUIRED) //The customer will
                                                //have to feed in the address details for the payment to be more secure.
-                    .setCustomer(customer.getId()) //customer is basically the current user from the security context.
+                    .setCustomer(customerId) //customer is basically the current user from the security context.
                     .setSuccessUrl(successUrl)
                     .setCancelUrl(failureUrl)
                     .addLineItem(
@@ -63,23 +111,22 @@ public class CheckoutServiceImpl implements CheckoutService{
 
             //This makes the http request to the stripe's servers
             // and the unique session id is retrived upon successfull checkout.
-            // we are storing the session id with the booking entity.
+            // the caller stores the session id with the booking entity.
             //sets the payment intent, but does not charge the card yet.
             Session session = Session.create(sessionParams);
-            booking.setPaymentSessionId(session.getId());
-            bookingRepository.save(booking);
-
-
 
             log.info("Session created successfully for booking with ID: {}", booking.getId());
-            // we return the session url back to the client.
+            // the session url goes back to the client.
             //using this url, the client can move to the Stripe's checkout page.
-            return session.getUrl();
+            return new CheckoutSessionDto(session.getId(), session.getUrl());
 
+        } catch (ApiConnectionException e) {
+            // connect or read timeout, or Stripe could not be reached at all.
+            throw new PaymentProviderUnavailableException("The payment provider could not be reached, please try again", e);
         } catch (StripeException e) {
             throw new RuntimeException(e);
         }
 
 
     }
-}
\ No newline at end of file
+}
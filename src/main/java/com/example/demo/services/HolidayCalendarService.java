@@ -0,0 +1,152 @@
+package com.example.demo.services;
+
+import com.example.demo.entity.Holiday;
+import com.example.demo.events.HolidaysChangedEvent;
+import com.example.demo.repositories.HolidayRepository;
+import com.example.demo.strategy.HolidayCalendar;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+
+//Holds the holiday calendar used by HolidayPricingStrategy in memory.
+//Holidays come from the holiday table (edited through /admin/holidays) and, optionally, from a local CSV file
+//(holiday.calendar.file) with lines of "date,city,name"; an empty city means the holiday applies to every city.
+//The calendar is kept as one bitset per city indexed by days since the first holiday, with the holidays of every city
+//already merged in, so a lookup is a map lookup and a single bit test. It is rebuilt after every admin change and
+//periodically to pick up edits of the file, and swapped in atomically, so pricing never sees a half loaded calendar.
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class HolidayCalendarService implements HolidayCalendar {
+
+    private final HolidayRepository holidayRepository;
+
+    @Value("${holiday.calendar.file:}")
+    private String calendarFile;
+
+    private volatile Snapshot snapshot = Snapshot.EMPTY;
+
+    @PostConstruct
+    public void init() {
+        reload();
+    }
+
+    @Override
+    public boolean isHoliday(String city, LocalDate date) {
+        return snapshot.isHoliday(city, date);
+    }
+
+    @Scheduled(fixedDelayString = "${holiday.calendar.refresh-ms:600000}", initialDelayString = "${holiday.calendar.refresh-ms:600000}")
+    public void refresh() {
+        try {
+            reload();
+        } catch (Exception e) {
+            log.error("Could not reload the holiday calendar, keeping the previous one", e);
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onHolidaysChanged(HolidaysChangedEvent event) {
+        refresh();
+    }
+
+    //Returns the number of holidays loaded. Holidays that are already over are not loaded, nothing is priced for them.
+    public int reload() {
+        LocalDate from = LocalDate.now().minusDays(1);
+        List<HolidayEntry> entries = new ArrayList<>();
+
+        for (Holiday holiday : holidayRepository.findByDateGreaterThanEqualOrderByDate(from)) {
+            entries.add(new HolidayEntry(holiday.getCity(), holiday.getDate()));
+        }
+        entries.addAll(readCalendarFile(from));
+
+        Snapshot loaded = Snapshot.of(entries);
+        snapshot = loaded;
+        log.info("Loaded {} holidays for {} cities", entries.size(), loaded.cityCount());
+        return entries.size();
+    }
+
+    private List<HolidayEntry> readCalendarFile(LocalDate from) {
+        if (calendarFile == null || calendarFile.isBlank()) return List.of();
+
+        Path path = Path.of(calendarFile);
+        List<String> lines;
+        try {
+            lines = Files.readAllLines(path);
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not read the holiday calendar file " + path, e);
+        }
+
+        List<HolidayEntry> entries = new ArrayList<>();
+        for (String line : lines) {
+            line = line.strip();
+            if (line.isEmpty() || line.startsWith("#")) continue;
+
+            String[] columns = line.split(",", 3);
+            LocalDate date;
+            try {
+                date = LocalDate.parse(columns[0].strip());
+            } catch (DateTimeParseException e) {
+                // one bad line must not keep the other holidays, or the application, from loading.
+                log.warn("Skipping line of the holiday calendar file {} with an invalid date: {}", path, line);
+                continue;
+            }
+            String city = columns.length > 1 && !columns[1].isBlank() ? columns[1].strip() : null;
+            if (!date.isBefore(from)) {
+                entries.add(new HolidayEntry(city, date));
+            }
+        }
+        return entries;
+    }
+
+    private record HolidayEntry(String city, LocalDate date) {
+    }
+
+    private record Snapshot(long firstEpochDay, BitSet everyCity, Map<String, BitSet> byCity) {
+
+        static final Snapshot EMPTY = new Snapshot(0, new BitSet(), Map.of());
+
+        static Snapshot of(List<HolidayEntry> entries) {
+            if (entries.isEmpty()) return EMPTY;
+
+            long firstEpochDay = entries.stream().mapToLong(entry -> entry.date().toEpochDay()).min().getAsLong();
+
+            BitSet everyCity = new BitSet();
+            for (HolidayEntry entry : entries) {
+                if (entry.city() == null) everyCity.set((int) (entry.date().toEpochDay() - firstEpochDay));
+            }
+
+            // case insensitive, as cities are typed in by hotel managers.
+            Map<String, BitSet> byCity = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+            for (HolidayEntry entry : entries) {
+                if (entry.city() == null) continue;
+                byCity.computeIfAbsent(entry.city(), city -> (BitSet) everyCity.clone())
+                        .set((int) (entry.date().toEpochDay() - firstEpochDay));
+            }
+            return new Snapshot(firstEpochDay, everyCity, byCity);
+        }
+
+        boolean isHoliday(String city, LocalDate date) {
+            long day = date.toEpochDay() - firstEpochDay;
+            if (day < 0 || day > Integer.MAX_VALUE) return false;
+
+            BitSet holidays = city == null ? everyCity : byCity.getOrDefault(city, everyCity);
+            return holidays.get((int) day);
+        }
+
+        int cityCount() {
+            return byCity.size();
+        }
+    }
+}
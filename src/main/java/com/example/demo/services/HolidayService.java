@@ -0,0 +1,19 @@
+package com.example.demo.services;
+
+import com.example.demo.dto.HolidayDto;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public interface HolidayService {
+
+    List<HolidayDto> getHolidays(LocalDate fromDate);
+
+    HolidayDto createHoliday(HolidayDto holidayDto);
+
+    HolidayDto updateHolidayById(Long id, HolidayDto holidayDto);
+
+    void deleteHolidayById(Long id);
+
+    int reloadCalendar();
+}
@@ -0,0 +1,88 @@
+package com.example.demo.services;
+
+import com.example.demo.dto.HolidayDto;
+import com.example.demo.entity.Holiday;
+import com.example.demo.events.HolidaysChangedEvent;
+import com.example.demo.exceptions.BadRequestException;
+import com.example.demo.exceptions.ResourceNotFoundException;
+import com.example.demo.repositories.HolidayRepository;
+import jakarta.transaction.Transactional;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.modelmapper.ModelMapper;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class HolidayServiceImpl implements HolidayService {
+
+    private final HolidayRepository holidayRepository;
+    private final HolidayCalendarService holidayCalendarService;
+    private final ModelMapper modelMapper;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Override
+    public List<HolidayDto> getHolidays(LocalDate fromDate) {
+        return holidayRepository.findByDateGreaterThanEqualOrderByDate(fromDate != null ? fromDate : LocalDate.now())
+                .stream()
+                .map(holiday -> modelMapper.map(holiday, HolidayDto.class))
+                .toList();
+    }
+
+    @Override
+    @Transactional
+    public HolidayDto createHoliday(HolidayDto holidayDto) {
+        log.info("Adding the holiday {} on {} in {}", holidayDto.getName(), holidayDto.getDate(), holidayDto.getCity());
+        Holiday holiday = new Holiday();
+        applyHolidayDto(holiday, holidayDto);
+        holiday = holidayRepository.save(holiday);
+
+        eventPublisher.publishEvent(new HolidaysChangedEvent(holiday.getCity(), holiday.getDate()));
+        return modelMapper.map(holiday, HolidayDto.class);
+    }
+
+    @Override
+    @Transactional
+    public HolidayDto updateHolidayById(Long id, HolidayDto holidayDto) {
+        log.info("Updating the holiday with ID: {}", id);
+        Holiday holiday = holidayRepository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Holiday not found with ID: " + id));
+        // the day the holiday was on has to be repriced as well.
+        eventPublisher.publishEvent(new HolidaysChangedEvent(holiday.getCity(), holiday.getDate()));
+        applyHolidayDto(holiday, holidayDto);
+        holiday = holidayRepository.save(holiday);
+
+        eventPublisher.publishEvent(new HolidaysChangedEvent(holiday.getCity(), holiday.getDate()));
+        return modelMapper.map(holiday, HolidayDto.class);
+    }
+
+    @Override
+    @Transactional
+    public void deleteHolidayById(Long id) {
+        log.info("Deleting the holiday with ID: {}", id);
+        Holiday holiday = holidayRepository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Holiday not found with ID: " + id));
+        holidayRepository.delete(holiday);
+
+        eventPublisher.publishEvent(new HolidaysChangedEvent(holiday.getCity(), holiday.getDate()));
+    }
+
+    @Override
+    public int reloadCalendar() {
+        return holidayCalendarService.reload();
+    }
+
+    private void applyHolidayDto(Holiday holiday, HolidayDto holidayDto) {
+        if (holidayDto.getDate() == null) {
+            throw new BadRequestException("The date of a holiday is required");
+        }
+        holiday.setDate(holidayDto.getDate());
+        holiday.setCity(holidayDto.getCity() == null || holidayDto.getCity().isBlank() ? null : holidayDto.getCity().strip());
+        holiday.setName(holidayDto.getName());
+    }
+}
@@ -0,0 +1,183 @@
+package com.example.demo.services;
+
+import com.example.demo.dto.DailyMinPriceDto;
+import com.example.demo.dto.HotelDto;
+import com.example.demo.entity.Hotel;
+import com.example.demo.entity.Inventory;
+import com.example.demo.events.InventoryChangedEvent;
+import com.example.demo.repositories.HotelMinPriceRepository;
+import com.example.demo.repositories.HotelRepository;
+import com.example.demo.repositories.InventoryRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+//Maintains HotelMinPrice, the per hotel per day read model used by hotel search.
+//For every day it stores the most free rooms any room type has and the cheapest price among the room types
+//that still have free rooms, so search can filter on roomsCount and date coverage with one range scan.
+//Availability changes are not applied on the thread that committed them: the committed InventoryChangedEvents are
+//only collected, coalesced per hotel into one date range, and every hotel-min-price.refresh.flush-ms the pending
+//hotels are refreshed, one transaction per hotel. A booking therefore responds without an extra transaction, and a
+//burst of bookings of one hotel costs one refresh. At most hotel-min-price.refresh.max-pending-hotels hotels are
+//pending; beyond that changes are dropped and counted, the next pricing run rewrites their rows.
+//The cached search pages of a refreshed hotel's city are evicted once more after the refresh, so search does not keep
+//pages it read in between.
+//Meters: hotel.min-price.refresh.pending (gauge), hotel.min-price.refresh.dropped (counter).
+@Service
+@Slf4j
+public class HotelMinPriceService {
+
+    private final HotelMinPriceRepository hotelMinPriceRepository;
+    private final InventoryRepository inventoryRepository;
+    private final HotelRepository hotelRepository;
+    private final HotelSearchCache hotelSearchCache;
+    private final TransactionTemplate transactionTemplate;
+    private final int maxPendingHotels;
+
+    private final ConcurrentHashMap<Long, PendingRange> pendingHotels = new ConcurrentHashMap<>();
+    private final Counter droppedChanges;
+
+    public HotelMinPriceService(HotelMinPriceRepository hotelMinPriceRepository,
+                                InventoryRepository inventoryRepository,
+                                HotelRepository hotelRepository,
+                                HotelSearchCache hotelSearchCache,
+                                TransactionTemplate transactionTemplate,
+                                MeterRegistry meterRegistry,
+                                @Value("${hotel-min-price.refresh.max-pending-hotels:10000}") int maxPendingHotels) {
+        this.hotelMinPriceRepository = hotelMinPriceRepository;
+        this.inventoryRepository = inventoryRepository;
+        this.hotelRepository = hotelRepository;
+        this.hotelSearchCache = hotelSearchCache;
+        this.transactionTemplate = transactionTemplate;
+        this.maxPendingHotels = maxPendingHotels;
+
+        this.droppedChanges = Counter.builder("hotel.min-price.refresh.dropped").register(meterRegistry);
+        Gauge.builder("hotel.min-price.refresh.pending", pendingHotels, Map::size).register(meterRegistry);
+    }
+
+    //Rewrites the HotelMinPrice rows of the hotel for every date present in the inventory list, in one batched upsert.
+    public void updateHotelMinPrice(Hotel hotel, List<Inventory> inventoryList) {
+        List<DailyMinPriceDto> dailyPrices = toDailyMinPrices(inventoryList);
+        int written = hotelMinPriceRepository.upsertHotelMinPrices(hotel.getId(), dailyPrices);
+        log.debug("{} of {} min price days of hotel {} changed", written, dailyPrices.size(), hotel.getId());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onInventoryChanged(InventoryChangedEvent event) {
+        if (event.getHotelId() == null) return;
+
+        switch (event.getType()) {
+            case CONFIRMED, REPRICED -> {
+                // free rooms did not change / the pricing job already rewrote the rows.
+            }
+            default -> enqueue(event);
+        }
+    }
+
+    private void enqueue(InventoryChangedEvent event) {
+        LocalDate startDate = event.getStartDate() != null ? event.getStartDate() : LocalDate.now();
+        // an event without dates (a deleted room type) covers every day a hotel can keep inventory for.
+        LocalDate endDate = event.getEndDate() != null ? event.getEndDate()
+                : LocalDate.now().plusDays(HotelDto.MAX_INVENTORY_HORIZON_DAYS);
+        if (pendingHotels.size() >= maxPendingHotels && !pendingHotels.containsKey(event.getHotelId())) {
+            droppedChanges.increment();
+            log.debug("Min price refresh queue is full, hotel {} is left to the pricing run", event.getHotelId());
+            return;
+        }
+        pendingHotels.merge(event.getHotelId(), new PendingRange(startDate, endDate), PendingRange::union);
+    }
+
+    @Scheduled(fixedDelayString = "${hotel-min-price.refresh.flush-ms:1000}")
+    public void flush() {
+        // removing the entries one by one hands every change either to this flush or to the next one.
+        for (Long hotelId : pendingHotels.keySet()) {
+            PendingRange range = pendingHotels.remove(hotelId);
+            if (range == null) continue;
+            try {
+                String city = transactionTemplate.execute(status ->
+                        refreshHotelMinPrice(hotelId, range.startDate(), range.endDate()));
+                if (city != null) {
+                    hotelSearchCache.evictCity(city);
+                }
+            } catch (Exception e) {
+                // the next pricing run rewrites the rows.
+                log.warn("Could not refresh the min prices of hotel {}", hotelId, e);
+            }
+        }
+    }
+
+    //Returns the city of the refreshed hotel, null when the hotel is gone.
+    private String refreshHotelMinPrice(Long hotelId, LocalDate startDate, LocalDate endDate) {
+        Hotel hotel = hotelRepository.findById(hotelId).orElse(null);
+        if (hotel == null) return null;
+
+        List<Inventory> inventoryList = inventoryRepository.findByHotelAndDateBetween(hotel, startDate, endDate);
+        updateHotelMinPrice(hotel, inventoryList);
+
+        // days left without any inventory (e.g. the only room type was deleted) cannot be booked anymore.
+        // the existing rows are read with one range query to find them.
+        Set<LocalDate> datesWithInventory = inventoryList.stream().map(Inventory::getDate).collect(Collectors.toSet());
+        List<DailyMinPriceDto> emptiedDays = hotelMinPriceRepository.findByHotelAndDateBetween(hotel, startDate, endDate)
+                .stream()
+                .filter(hotelPrice -> !datesWithInventory.contains(hotelPrice.getDate()))
+                .filter(hotelPrice -> hotelPrice.getAvailableRooms() != 0)
+                .map(hotelPrice -> new DailyMinPriceDto(hotelPrice.getDate(), hotelPrice.getPrice(), 0))
+                .toList();
+        hotelMinPriceRepository.upsertHotelMinPrices(hotel.getId(), emptiedDays);
+
+        log.debug("Refreshed min prices of hotel {} between {} and {}", hotel.getId(), startDate, endDate);
+        return hotel.getCity();
+    }
+
+    private record PendingRange(LocalDate startDate, LocalDate endDate) {
+
+        PendingRange union(PendingRange other) {
+            return new PendingRange(startDate.isBefore(other.startDate) ? startDate : other.startDate,
+                    endDate.isAfter(other.endDate) ? endDate : other.endDate);
+        }
+    }
+
+    //the min price and free rooms of every date in the inventory list, in date order.
+    public static List<DailyMinPriceDto> toDailyMinPrices(List<Inventory> inventoryList) {
+        Map<LocalDate, List<Inventory>> inventoryByDate = inventoryList.stream()
+                .collect(Collectors.groupingBy(Inventory::getDate, TreeMap::new, Collectors.toList()));
+
+        List<DailyMinPriceDto> dailyPrices = new ArrayList<>(inventoryByDate.size());
+        inventoryByDate.forEach((date, dayInventory) ->
+                dailyPrices.add(new DailyMinPriceDto(date, minPrice(dayInventory), maxFreeRooms(dayInventory))));
+        return dailyPrices;
+    }
+
+    static int freeRooms(Inventory inventory) {
+        if (Boolean.TRUE.equals(inventory.getClosed())) return 0;
+        return Math.max(0, inventory.getTotalCount() - inventory.getBookedCount() - inventory.getReservedCount());
+    }
+
+    static int maxFreeRooms(List<Inventory> dayInventory) {
+        return dayInventory.stream().mapToInt(HotelMinPriceService::freeRooms).max().orElse(0);
+    }
+
+    //cheapest room type that can still be booked, or the cheapest room type when the hotel is sold out that day.
+    static BigDecimal minPrice(List<Inventory> dayInventory) {
+        return dayInventory.stream()
+                .filter(inventory -> freeRooms(inventory) > 0)
+                .map(Inventory::getPrice)
+                .min(Comparator.naturalOrder())
+                .orElseGet(() -> dayInventory.stream()
+                        .map(Inventory::getPrice)
+                        .min(Comparator.naturalOrder())
+                        .orElse(BigDecimal.ZERO));
+    }
+}
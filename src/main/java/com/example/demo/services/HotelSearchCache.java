@@ -0,0 +1,101 @@
+package com.example.demo.services;
+
+import com.example.demo.dto.HotelPriceResponseDto;
+import com.example.demo.dto.HotelSearchRequest;
+import com.example.demo.events.InventoryChangedEvent;
+import com.example.demo.util.TtlLruCache;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDate;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+//Caches the pages returned by hotel search. Prices only change when the pricing job runs, and availability only
+//changes through the inventory transitions, so every InventoryChangedEvent evicts the cached pages of its city.
+//A search that read the data before a change committed must not store its page after the eviction, so every city has
+//a generation that each eviction bumps; a page is only kept when its city's generation did not move during the search.
+//Hit, miss and eviction counters are published as hotel.search.cache.* meters.
+@Service
+@Slf4j
+public class HotelSearchCache {
+
+    private final TtlLruCache<SearchKey, Page<HotelPriceResponseDto>> cache;
+    private final ConcurrentHashMap<String, AtomicLong> generations = new ConcurrentHashMap<>();
+
+    public HotelSearchCache(MeterRegistry meterRegistry,
+                            @Value("${search.cache.max-size:10000}") int maxSize,
+                            @Value("${search.cache.ttl-seconds:300}") long ttlSeconds) {
+        this.cache = new TtlLruCache<>(maxSize, ttlSeconds * 1000);
+
+        FunctionCounter.builder("hotel.search.cache.hits", cache, TtlLruCache::getHits).register(meterRegistry);
+        FunctionCounter.builder("hotel.search.cache.misses", cache, TtlLruCache::getMisses).register(meterRegistry);
+        FunctionCounter.builder("hotel.search.cache.evictions", cache, TtlLruCache::getEvictions)
+                .tag("cause", "size").register(meterRegistry);
+        FunctionCounter.builder("hotel.search.cache.evictions", cache, TtlLruCache::getExpirations)
+                .tag("cause", "expired").register(meterRegistry);
+        FunctionCounter.builder("hotel.search.cache.evictions", cache, TtlLruCache::getInvalidations)
+                .tag("cause", "inventory-change").register(meterRegistry);
+        Gauge.builder("hotel.search.cache.size", cache, TtlLruCache::size).register(meterRegistry);
+    }
+
+    public Page<HotelPriceResponseDto> get(HotelSearchRequest hotelSearchRequest, Supplier<Page<HotelPriceResponseDto>> search) {
+        SearchKey key = SearchKey.of(hotelSearchRequest);
+        Page<HotelPriceResponseDto> page = cache.get(key);
+        if (page == null) {
+            AtomicLong generation = generation(key.city());
+            long searchedGeneration = generation.get();
+            page = search.get();
+            if (generation.get() == searchedGeneration) {
+                cache.put(key, page);
+                // an eviction that ran between the check and the put did not see the page, drop it here instead.
+                if (generation.get() != searchedGeneration) {
+                    cache.remove(key);
+                }
+            }
+        }
+        return page;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onInventoryChanged(InventoryChangedEvent event) {
+        if (event.getCity() == null) return;
+        int evicted = evictCity(event.getCity());
+        if (evicted > 0) {
+            log.debug("Evicted {} cached search pages for city {} after {}", evicted, event.getCity(), event.getType());
+        }
+    }
+
+    //Also called once a change reached the search read models, which HotelMinPriceService updates asynchronously.
+    public int evictCity(String city) {
+        String trimmedCity = city.trim();
+        // bumped before evicting, so a search running now does not store what it read.
+        generation(trimmedCity).incrementAndGet();
+        return cache.removeIf(key -> key.city().equalsIgnoreCase(trimmedCity));
+    }
+
+    private AtomicLong generation(String city) {
+        return generations.computeIfAbsent(city.toLowerCase(Locale.ROOT), c -> new AtomicLong());
+    }
+
+    record SearchKey(String city, LocalDate startDate, LocalDate endDate, int roomsCount, int page, int size) {
+
+        static SearchKey of(HotelSearchRequest request) {
+            return new SearchKey(
+                    request.getCity() == null ? "" : request.getCity().trim(),
+                    request.getStartDate(),
+                    request.getEndDate(),
+                    request.getRoomsCount() == null ? 1 : request.getRoomsCount(),
+                    request.getPage() == null ? 0 : request.getPage(),
+                    request.getSize() == null ? 10 : request.getSize());
+        }
+    }
+}
@@ -2,8 +2,10 @@ package com.example.demo.services;
 
 import com.example.demo.dto.*;
 import com.example.demo.entity.Hotel;
+import com.example.demo.entity.Inventory;
 import com.example.demo.entity.Room;
 import com.example.demo.entity.User;
+import com.example.demo.exceptions.BadRequestException;
 import com.example.demo.exceptions.ResourceNotFoundException;
 import com.example.demo.exceptions.UnAuthorisedException;
 import com.example.demo.repositories.HotelRepository;
@@ -17,7 +19,9 @@ import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 
 import java.time.temporal.ChronoUnit;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 import static com.example.demo.util.AppUtils.getCurrentUser;
@@ -32,10 +36,12 @@ import static com.example.demo.util.AppUtils.getCurrentUser;
         private final InventoryService inventoryService;
         private final RoomRepository roomRepository;
         private final InventoryRepository inventoryRepository;
+        private final PriceQuoteService priceQuoteService;
 
         @Override
         public HotelDto createNewHotel(HotelDto hotelDto) {
             log.info("Creating a new hotel with name: {}", hotelDto.getName());
+            validateInventoryHorizon(hotelDto);
             Hotel hotel = modelMapper.map(hotelDto, Hotel.class);
             hotel.setActive(false); // At first there will be no inventory for this hotel, so it will not be shown as active.
 
@@ -47,6 +53,16 @@ import static com.example.demo.util.AppUtils.getCurrentUser;
             return modelMapper.map(hotel, HotelDto.class);
         }
 
+        //the horizon drives how much inventory is inserted and how many partitions are created, whoever calls.
+        private void validateInventoryHorizon(HotelDto hotelDto) {
+            Integer horizonDays = hotelDto.getInventoryHorizonDays();
+            if (horizonDays != null && (horizonDays < HotelDto.MIN_INVENTORY_HORIZON_DAYS
+                    || horizonDays > HotelDto.MAX_INVENTORY_HORIZON_DAYS)) {
+                throw new BadRequestException("inventoryHorizonDays must be between " + HotelDto.MIN_INVENTORY_HORIZON_DAYS
+                        + " and " + HotelDto.MAX_INVENTORY_HORIZON_DAYS);
+            }
+        }
+
         @Override
         public HotelDto getHotelById(Long id) {
             log.info("Getting the hotel with ID: {}", id);
@@ -76,6 +92,7 @@ import static com.example.demo.util.AppUtils.getCurrentUser;
                 throw new UnAuthorisedException("This user does not own this hotel with id: "+id);
             }
 
+            validateInventoryHorizon(hotelDto);
             modelMapper.map(hotelDto, hotel);
             hotel.setId(id);
             hotel = hotelRepository.save(hotel);
@@ -144,11 +161,26 @@ import static com.example.demo.util.AppUtils.getCurrentUser;
                     hotelInfoRequestDto.getStartDate(), hotelInfoRequestDto.getEndDate(),
                     hotelInfoRequestDto.getRoomsCount(), daysCount);
 
+            //nightly prices of every room type, quoted for the rooms that can be booked on every day.
+            Map<Long, List<Inventory>> inventoryByRoom = inventoryRepository.findByHotelAndDateBetween(hotel,
+                            hotelInfoRequestDto.getStartDate(), hotelInfoRequestDto.getEndDate())
+                    .stream()
+                    .sorted(Comparator.comparing(Inventory::getDate))
+                    .collect(Collectors.groupingBy(inventory -> inventory.getRoom().getId()));
+
             List<RoomPriceResponseDto> rooms = roomPriceDtoList.stream()
                     .map(roomPriceDto -> {
                         RoomPriceResponseDto roomPriceResponseDto = modelMapper.map(roomPriceDto.getRoom(),
                                 RoomPriceResponseDto.class);
                         roomPriceResponseDto.setPrice(roomPriceDto.getPrice());
+
+                        List<Inventory> roomInventory = inventoryByRoom.get(roomPriceDto.getRoom().getId());
+                        if (roomPriceDto.getPrice() != null && roomInventory != null && roomInventory.size() == daysCount) {
+                            roomPriceResponseDto.setNightlyPrices(roomInventory.stream().map(Inventory::getPrice).toList());
+                            roomPriceResponseDto.setQuoteToken(priceQuoteService.createQuote(hotel,
+                                    roomPriceDto.getRoom().getId(), hotelInfoRequestDto.getStartDate(),
+                                    hotelInfoRequestDto.getEndDate(), roomInventory));
+                        }
                         return roomPriceResponseDto;
                     })
                     .collect(Collectors.toList());
@@ -0,0 +1,186 @@
+package com.example.demo.services;
+
+import com.example.demo.entity.IdempotencyRecord;
+import com.example.demo.entity.enums.IdempotencyStatus;
+import com.example.demo.exceptions.BadRequestException;
+import com.example.demo.exceptions.IdempotencyKeyInUseException;
+import com.example.demo.repositories.IdempotencyRecordRepository;
+import com.example.demo.util.TtlLruCache;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+import static com.example.demo.util.AppUtils.getCurrentUser;
+
+//Idempotency-Key support for requests that must not run twice when a client retries them, e.g. after a network
+//timeout: reserving inventory and creating Stripe sessions.
+//The first request with a key claims it in idempotency_record, runs, and stores its response there for
+//idempotency.ttl-hours. A retry with the same key gets the stored response back without running the request again;
+//while the first request is still running, retries get a 409. Keys are scoped per user and operation, and a key may
+//not be reused for a different request body (400). A request that fails releases its key, so it can be retried.
+//Completed responses are also kept in an in-memory front cache (idempotency.cache.*), so fast duplicate retries are
+//answered without a database round trip.
+//A claim that is still IN_PROGRESS after idempotency.in-progress-timeout-seconds is taken to be from a request that
+//died and may be taken over by a retry, so the timeout has to be longer than the slowest booking or payment start
+//(admission wait, reservation retries, Stripe timeouts). Every claim gets a random token; a request that was too slow
+//and lost its claim can neither complete nor release the retry's.
+//Like the operations it wraps it must not be called inside a transaction.
+//Meters: idempotency.requests{outcome} (counter), idempotency.cache.hits/misses (counters).
+@Service
+@Slf4j
+public class IdempotencyService {
+
+    private final IdempotencyRecordRepository idempotencyRecordRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final long ttlHours;
+    private final long inProgressTimeoutSeconds;
+
+    private final TtlLruCache<String, StoredResponse> responses;
+    private final MeterRegistry meterRegistry;
+
+    public IdempotencyService(IdempotencyRecordRepository idempotencyRecordRepository,
+                              TransactionTemplate transactionTemplate,
+                              ObjectMapper objectMapper,
+                              MeterRegistry meterRegistry,
+                              @Value("${idempotency.ttl-hours:24}") long ttlHours,
+                              @Value("${idempotency.in-progress-timeout-seconds:300}") long inProgressTimeoutSeconds,
+                              @Value("${idempotency.cache.max-size:10000}") int cacheMaxSize,
+                              @Value("${idempotency.cache.ttl-seconds:300}") long cacheTtlSeconds) {
+        this.idempotencyRecordRepository = idempotencyRecordRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.objectMapper = objectMapper;
+        this.ttlHours = ttlHours;
+        this.inProgressTimeoutSeconds = inProgressTimeoutSeconds;
+        this.meterRegistry = meterRegistry;
+        this.responses = new TtlLruCache<>(cacheMaxSize, cacheTtlSeconds * 1000);
+
+        FunctionCounter.builder("idempotency.cache.hits", responses, TtlLruCache::getHits).register(meterRegistry);
+        FunctionCounter.builder("idempotency.cache.misses", responses, TtlLruCache::getMisses).register(meterRegistry);
+    }
+
+    //Runs the operation once per key; without a key it simply runs it.
+    public <T> T execute(String idempotencyKey, String operation, Object request, Class<T> responseType,
+                         Supplier<T> action) {
+        if (idempotencyKey == null || idempotencyKey.isBlank()) {
+            return action.get();
+        }
+        if (idempotencyKey.length() > 255) {
+            throw new BadRequestException("Idempotency-Key must not be longer than 255 characters");
+        }
+
+        String id = getCurrentUser().getId() + ":" + operation + ":" + idempotencyKey;
+        String requestHash = hash(operation, request);
+
+        StoredResponse cached = responses.get(id);
+        if (cached != null) {
+            count("replayed-cache");
+            return replay(cached, requestHash, responseType);
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        String claimToken = UUID.randomUUID().toString();
+        Integer claimed = transactionTemplate.execute(status -> idempotencyRecordRepository.claim(id, requestHash,
+                claimToken, now, now.plusSeconds(inProgressTimeoutSeconds)));
+        if (claimed == null || claimed == 0) {
+            return replayStored(id, requestHash, responseType);
+        }
+
+        T response;
+        try {
+            response = action.get();
+        } catch (RuntimeException e) {
+            // nothing was stored for the key, the client may retry with it.
+            transactionTemplate.executeWithoutResult(status -> idempotencyRecordRepository.release(id, claimToken));
+            count("failed");
+            throw e;
+        }
+
+        String responseBody = toJson(response);
+        Integer completed = transactionTemplate.execute(status -> idempotencyRecordRepository.complete(id, claimToken,
+                IdempotencyStatus.COMPLETED, responseBody, LocalDateTime.now().plusHours(ttlHours)));
+        if (completed == null || completed == 0) {
+            // a retry took the key over while this request ran past the in-progress timeout, its claim stays.
+            log.warn("Idempotency key {} was taken over before its request completed", id);
+            count("claim-lost");
+            return response;
+        }
+        responses.put(id, new StoredResponse(requestHash, responseBody));
+        count("executed");
+        return response;
+    }
+
+    @Scheduled(cron = "${idempotency.cleanup-cron:0 5 * * * *}")
+    public void deleteExpiredRecords() {
+        Integer deleted = transactionTemplate.execute(status ->
+                idempotencyRecordRepository.deleteExpired(LocalDateTime.now()));
+        log.debug("Deleted {} expired idempotency records", deleted);
+    }
+
+    private <T> T replayStored(String id, String requestHash, Class<T> responseType) {
+        IdempotencyRecord record = idempotencyRecordRepository.findById(id).orElse(null);
+        if (record == null || record.getStatus() == IdempotencyStatus.IN_PROGRESS) {
+            // no record: the first request just failed and released the key, the client retries.
+            count("in-progress");
+            throw new IdempotencyKeyInUseException("A request with this Idempotency-Key is still being processed");
+        }
+
+        StoredResponse stored = new StoredResponse(record.getRequestHash(), record.getResponseBody());
+        count("replayed");
+        T response = replay(stored, requestHash, responseType);
+        responses.put(id, stored);
+        return response;
+    }
+
+    private <T> T replay(StoredResponse stored, String requestHash, Class<T> responseType) {
+        if (!stored.requestHash().equals(requestHash)) {
+            throw new BadRequestException("Idempotency-Key was already used for a different request");
+        }
+        try {
+            return objectMapper.readValue(stored.responseBody(), responseType);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Stored response could not be read", e);
+        }
+    }
+
+    private String hash(String operation, Object request) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(operation.getBytes(StandardCharsets.UTF_8));
+            digest.update(objectMapper.writeValueAsBytes(request));
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException | JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private String toJson(Object response) {
+        try {
+            return objectMapper.writeValueAsString(response);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Response could not be stored", e);
+        }
+    }
+
+    private void count(String outcome) {
+        Counter.builder("idempotency.requests").tag("outcome", outcome).register(meterRegistry).increment();
+    }
+
+    private record StoredResponse(String requestHash, String responseBody) {
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.demo.services;
+
+import com.example.demo.entity.Hotel;
+import com.example.demo.entity.Room;
+import com.example.demo.repositories.HotelRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+//Inventory is created up to the hotel's horizon when a hotel is activated or a room is added, and the horizon
+//would shrink by one day every day after that. This job appends the missing days for every room of every active hotel.
+//Hotels are split in partitions by id (id % partition-count), so each node can be given its own partition-index.
+//Every hotel is extended in a transaction of its own and the job starts from the last existing date of each room,
+//so a run that was interrupted simply continues where it stopped the next time.
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class InventoryHorizonService {
+
+    private final HotelRepository hotelRepository;
+    private final InventoryService inventoryService;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${inventory.horizon.partition-count:1}")
+    private int partitionCount;
+
+    @Value("${inventory.horizon.partition-index:0}")
+    private int partitionIndex;
+
+    @Value("${inventory.horizon.batch-size:100}")
+    private int batchSize;
+
+    @Scheduled(cron = "${inventory.horizon.cron:0 30 0 * * *}")
+    public void extendInventoryHorizon() {
+        long start = System.currentTimeMillis();
+        int hotels = 0;
+        long created = 0;
+
+        Long lastHotelId = 0L;
+        List<Long> hotelIds;
+        do {
+            hotelIds = hotelRepository.findActiveHotelIdsInPartition(partitionCount, partitionIndex, lastHotelId,
+                    Limit.of(batchSize));
+            for (Long hotelId : hotelIds) {
+                try {
+                    created += extendHotel(hotelId);
+                    hotels++;
+                } catch (Exception e) {
+                    log.error("Could not extend the inventory horizon of hotel {}", hotelId, e);
+                }
+            }
+            if (!hotelIds.isEmpty()) lastHotelId = hotelIds.get(hotelIds.size() - 1);
+        } while (hotelIds.size() == batchSize);
+
+        log.info("Inventory horizon extended for {} hotels of partition {}/{}: {} rows created in {} ms", hotels,
+                partitionIndex, partitionCount, created, System.currentTimeMillis() - start);
+    }
+
+    private int extendHotel(Long hotelId) {
+        Integer created = transactionTemplate.execute(status -> {
+            Hotel hotel = hotelRepository.findById(hotelId).orElse(null);
+            if (hotel == null || !Boolean.TRUE.equals(hotel.getActive())) return 0;
+
+            int rows = 0;
+            for (Room room : hotel.getRooms()) {
+                rows += inventoryService.extendInventoryHorizon(room);
+            }
+            return rows;
+        });
+        return created == null ? 0 : created;
+    }
+}
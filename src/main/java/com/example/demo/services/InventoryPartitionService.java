@@ -0,0 +1,214 @@
+package com.example.demo.services;
+
+import com.example.demo.dto.HotelDto;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+//Keeps the inventory table partitioned by month (PARTITION BY RANGE (date), one inventory_pYYYYMM table per month).
+//At startup a plain inventory table is converted into a partitioned one, and partitions are created ahead of the
+//longest inventory horizon. Once a month is over its partition is rolled into inventory_history, a compact table
+//without the reservation columns used for reporting, and dropped.
+//Every query on the booking and search paths filters on the date, so Postgres only scans the partitions of the
+//current and future months.
+//All of this runs on every node, so the conversion and the partition changes are serialised across nodes with a
+//transaction scoped advisory lock; a node that waited for it finds the work done.
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class InventoryPartitionService {
+
+    private static final String PARTITION_PREFIX = "inventory_p";
+    private static final DateTimeFormatter PARTITION_SUFFIX = DateTimeFormatter.ofPattern("yyyyMM");
+    private static final long PARTITION_LOCK_KEY = 0x696e76656e746f72L;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${inventory.partitioning.enabled:true}")
+    private boolean enabled;
+
+    @Value("${inventory.partitioning.extra-months:2}")
+    private int extraMonths;
+
+    @Value("${inventory.horizon-days:365}")
+    private int defaultHorizonDays;
+
+    //runs before the schedulers start, so nothing reads the table while it is being converted.
+    @PostConstruct
+    public void initPartitions() {
+        if (!enabled) return;
+
+        transactionTemplate.executeWithoutResult(status -> {
+            lockPartitions();
+            createHistoryTable();
+            String relationKind = getInventoryRelationKind();
+            if (relationKind == null) {
+                log.warn("Inventory table does not exist, partitioning skipped");
+                return;
+            }
+            if (!"p".equals(relationKind)) {
+                migrateToPartitionedTable();
+            }
+            ensureFuturePartitions();
+        });
+        archivePastPartitions();
+    }
+
+    @Scheduled(cron = "${inventory.partitioning.cron:0 15 0 * * *}")
+    public void maintainPartitions() {
+        if (!enabled || !"p".equals(getInventoryRelationKind())) return;
+
+        transactionTemplate.executeWithoutResult(status -> {
+            lockPartitions();
+            ensureFuturePartitions();
+        });
+        archivePastPartitions();
+    }
+
+    //Creates the missing monthly partitions up to endDate, so inventory can be inserted for dates past the horizon
+    //the daily job prepared, e.g. right after a hotel raised its inventoryHorizonDays. Runs in the caller's transaction:
+    //creating a partition locks the inventory table, which the caller may already have written to.
+    public void ensurePartitionsUntil(LocalDate endDate) {
+        if (!enabled) return;
+
+        YearMonth lastMonth = YearMonth.from(endDate);
+        if (getPartitions().contains(partitionName(lastMonth))) return;
+        if (!"p".equals(getInventoryRelationKind())) return;
+
+        lockPartitions();
+        createPartitions(YearMonth.now(), lastMonth);
+    }
+
+    private void ensureFuturePartitions() {
+        // capped like the owners' input, a value stored before it was validated cannot create years of partitions.
+        Integer longestHotelHorizon = jdbcTemplate.queryForObject(
+                "SELECT LEAST(COALESCE(MAX(inventory_horizon_days), 0), ?) FROM hotel", Integer.class,
+                HotelDto.MAX_INVENTORY_HORIZON_DAYS);
+        int horizonDays = Math.max(defaultHorizonDays, longestHotelHorizon == null ? 0 : longestHotelHorizon);
+
+        YearMonth lastMonth = YearMonth.from(LocalDate.now().plusDays(horizonDays)).plusMonths(extraMonths);
+        createPartitions(YearMonth.now(), lastMonth);
+    }
+
+    //Every month before the current one is copied into inventory_history and its partition dropped,
+    //one month per transaction. Dropping a partition is far cheaper than deleting its rows.
+    private void archivePastPartitions() {
+        YearMonth currentMonth = YearMonth.now();
+        for (String partition : getPartitions()) {
+            YearMonth month = YearMonth.parse(partition.substring(PARTITION_PREFIX.length()), PARTITION_SUFFIX);
+            if (!month.isBefore(currentMonth)) continue;
+
+            Integer archived = transactionTemplate.execute(status -> {
+                lockPartitions();
+                // another node may have archived it while this one waited for the lock.
+                if (jdbcTemplate.queryForObject("SELECT to_regclass(?) IS NOT NULL", Boolean.class, partition) != Boolean.TRUE) {
+                    return null;
+                }
+                int rows = jdbcTemplate.update("""
+                        INSERT INTO inventory_history (hotel_id, room_id, city, date, total_count, booked_count, price)
+                        SELECT hotel_id, room_id, city, date, total_count, booked_count, price
+                        FROM %s
+                        ON CONFLICT DO NOTHING
+                        """.formatted(partition));
+                jdbcTemplate.execute("DROP TABLE " + partition);
+                return rows;
+            });
+            if (archived == null) continue;
+            log.info("Archived {} inventory rows of {} and dropped partition {}", archived, month, partition);
+        }
+    }
+
+    private void migrateToPartitionedTable() {
+        log.info("Converting the inventory table into a table partitioned by month");
+        String oldTable = "inventory_unpartitioned";
+
+        jdbcTemplate.execute("ALTER TABLE inventory RENAME TO " + oldTable);
+        // the primary key and unique constraint own indexes whose names must be free for the new table.
+        List<String> indexedConstraints = jdbcTemplate.queryForList(
+                "SELECT conname FROM pg_constraint WHERE conrelid = '" + oldTable + "'::regclass AND contype IN ('p', 'u')",
+                String.class);
+        for (String constraint : indexedConstraints) {
+            jdbcTemplate.execute("ALTER TABLE " + oldTable + " RENAME CONSTRAINT " + constraint + " TO " + oldTable + "_" + constraint);
+        }
+
+        // unique constraints of a partitioned table have to contain the partition key.
+        jdbcTemplate.execute("CREATE TABLE inventory (LIKE " + oldTable + " INCLUDING DEFAULTS) PARTITION BY RANGE (date)");
+        jdbcTemplate.execute("ALTER TABLE inventory ADD CONSTRAINT inventory_pkey PRIMARY KEY (id, date)");
+        jdbcTemplate.execute("ALTER TABLE inventory ADD CONSTRAINT unique_hotel_room_date UNIQUE (hotel_id, room_id, date)");
+        jdbcTemplate.execute("ALTER TABLE inventory ADD CONSTRAINT fk_inventory_hotel FOREIGN KEY (hotel_id) REFERENCES hotel (id)");
+        jdbcTemplate.execute("ALTER TABLE inventory ADD CONSTRAINT fk_inventory_room FOREIGN KEY (room_id) REFERENCES room (id)");
+
+        LocalDate firstDate = jdbcTemplate.queryForObject("SELECT MIN(date) FROM " + oldTable, LocalDate.class);
+        LocalDate lastDate = jdbcTemplate.queryForObject("SELECT MAX(date) FROM " + oldTable, LocalDate.class);
+        if (firstDate != null) {
+            createPartitions(YearMonth.from(firstDate), YearMonth.from(lastDate));
+        }
+
+        int rows = jdbcTemplate.update("INSERT INTO inventory SELECT * FROM " + oldTable);
+        jdbcTemplate.execute("DROP TABLE " + oldTable);
+        log.info("Moved {} inventory rows into the partitioned table", rows);
+    }
+
+    //only the missing partitions are created, each CREATE locks the whole inventory table.
+    private void createPartitions(YearMonth fromMonth, YearMonth toMonth) {
+        List<String> existing = getPartitions();
+        for (YearMonth month = fromMonth; !month.isAfter(toMonth); month = month.plusMonths(1)) {
+            String partition = partitionName(month);
+            if (existing.contains(partition)) continue;
+            jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS %s PARTITION OF inventory FOR VALUES FROM ('%s') TO ('%s')"
+                    .formatted(partition, month.atDay(1), month.plusMonths(1).atDay(1)));
+        }
+    }
+
+    private static String partitionName(YearMonth month) {
+        return PARTITION_PREFIX + month.format(PARTITION_SUFFIX);
+    }
+
+    //held until the surrounding transaction ends.
+    private void lockPartitions() {
+        jdbcTemplate.execute("SELECT pg_advisory_xact_lock(" + PARTITION_LOCK_KEY + ")");
+    }
+
+    private void createHistoryTable() {
+        jdbcTemplate.execute("""
+                CREATE TABLE IF NOT EXISTS inventory_history (
+                    hotel_id BIGINT NOT NULL,
+                    room_id BIGINT NOT NULL,
+                    city VARCHAR(255),
+                    date DATE NOT NULL,
+                    total_count INTEGER NOT NULL,
+                    booked_count INTEGER NOT NULL,
+                    price NUMERIC(10, 2) NOT NULL,
+                    PRIMARY KEY (hotel_id, room_id, date)
+                )
+                """);
+    }
+
+    //'p' for a partitioned table, 'r' for a plain one, null when the table does not exist.
+    private String getInventoryRelationKind() {
+        List<String> kinds = jdbcTemplate.queryForList(
+                "SELECT relkind::text FROM pg_class WHERE oid = to_regclass('inventory')", String.class);
+        return kinds.isEmpty() ? null : kinds.get(0);
+    }
+
+    private List<String> getPartitions() {
+        return jdbcTemplate.queryForList("""
+                SELECT c.relname
+                FROM pg_inherits i
+                JOIN pg_class c ON c.oid = i.inhrelid
+                WHERE i.inhparent = to_regclass('inventory') AND c.relname LIKE 'inventory\\_p%'
+                ORDER BY c.relname
+                """, String.class);
+    }
+}
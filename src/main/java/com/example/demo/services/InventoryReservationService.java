@@ -0,0 +1,104 @@
+package com.example.demo.services;
+
+import com.example.demo.entity.Hotel;
+import com.example.demo.entity.Inventory;
+import com.example.demo.entity.enums.ReservationMode;
+import com.example.demo.exceptions.ReservationConflictException;
+import com.example.demo.repositories.InventoryRepository;
+import jakarta.transaction.Transactional;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+//Moves roomsCount rooms of a room type from free to reserved for every day between startDate and endDate (inclusive)
+//and returns the reserved inventory rows, so the caller can price the booking.
+//Either every day is reserved or an exception is thrown and the surrounding transaction rolls back:
+//IllegalStateException when a day is sold out, ReservationConflictException when an optimistic reservation raced
+//with another booking and the whole transaction should be retried.
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class InventoryReservationService {
+
+    private final InventoryRepository inventoryRepository;
+
+    @Value("${booking.reservation-mode:SINGLE_STATEMENT}")
+    private ReservationMode defaultReservationMode;
+
+    public ReservationMode getReservationMode(Hotel hotel) {
+        return hotel.getReservationMode() != null ? hotel.getReservationMode() : defaultReservationMode;
+    }
+
+    @Transactional
+    public List<Inventory> reserve(Hotel hotel, Long roomId, LocalDate startDate, LocalDate endDate, int roomsCount) {
+        return reserve(getReservationMode(hotel), roomId, startDate, endDate, roomsCount);
+    }
+
+    @Transactional
+    public List<Inventory> reserve(ReservationMode mode, Long roomId, LocalDate startDate, LocalDate endDate,
+                                   int roomsCount) {
+        long daysCount = ChronoUnit.DAYS.between(startDate, endDate) + 1;
+
+        return switch (mode) {
+            case PESSIMISTIC -> reserveWithLock(roomId, startDate, endDate, roomsCount, daysCount);
+            case SINGLE_STATEMENT -> reserveInSingleStatement(roomId, startDate, endDate, roomsCount, daysCount);
+            case OPTIMISTIC -> reserveOptimistically(roomId, startDate, endDate, roomsCount, daysCount);
+        };
+    }
+
+    //Locks the free rows with SELECT ... FOR UPDATE and reserves them with a second UPDATE.
+    private List<Inventory> reserveWithLock(Long roomId, LocalDate startDate, LocalDate endDate, int roomsCount,
+                                            long daysCount) {
+        List<Inventory> inventoryList = inventoryRepository.findAndLockAvailableInventory(roomId, startDate, endDate,
+                roomsCount);
+        if (inventoryList.size() != daysCount) {
+            throw new IllegalStateException("Room is not available anymore");
+        }
+
+        int updated = inventoryRepository.initBooking(roomId, startDate, endDate, roomsCount);
+        if (updated != daysCount) {
+            throw new IllegalStateException("Room is not available anymore");
+        }
+        return inventoryList;
+    }
+
+    //The UPDATE only touches days that still have enough free rooms, so fewer returned rows than days means
+    //that at least one day is sold out. Throwing rolls the reservation of the other days back.
+    private List<Inventory> reserveInSingleStatement(Long roomId, LocalDate startDate, LocalDate endDate,
+                                                     int roomsCount, long daysCount) {
+        List<Inventory> inventoryList = inventoryRepository.reserveAvailableInventory(roomId, startDate, endDate,
+                roomsCount);
+        if (inventoryList.size() != daysCount) {
+            log.debug("Only {} of {} days of room {} could be reserved", inventoryList.size(), daysCount, roomId);
+            throw new IllegalStateException("Room is not available anymore");
+        }
+        return inventoryList;
+    }
+
+    //Reads the free rows without locking them and reserves each day with an update that checks the row version.
+    //No lock is held while reading; if another booking changed one of the rows in between, the update of that day
+    //matches nothing and the caller retries the whole transaction.
+    private List<Inventory> reserveOptimistically(Long roomId, LocalDate startDate, LocalDate endDate, int roomsCount,
+                                                  long daysCount) {
+        List<Inventory> inventoryList = inventoryRepository.findAvailableInventory(roomId, startDate, endDate,
+                roomsCount);
+        if (inventoryList.size() != daysCount) {
+            throw new IllegalStateException("Room is not available anymore");
+        }
+
+        for (Inventory inventory : inventoryList) {
+            int updated = inventoryRepository.reserveInventoryIfUnchanged(inventory.getId(), inventory.getDate(),
+                    inventory.getVersion(), roomsCount);
+            if (updated == 0) {
+                throw new ReservationConflictException("Inventory of room " + roomId + " on " + inventory.getDate()
+                        + " was changed by another booking");
+            }
+        }
+        return inventoryList;
+    }
+}
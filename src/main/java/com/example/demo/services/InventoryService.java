@@ -1,19 +1,28 @@
 package com.example.demo.services;
 
 import com.example.demo.dto.*;
+import com.example.demo.entity.Hotel;
 import com.example.demo.entity.Room;
 import org.springframework.data.domain.Page;
 
+import java.time.LocalDate;
 import java.util.List;
 
 public interface InventoryService {
 
     void initializeRoomForAYear(Room room);
 
+    int extendInventoryHorizon(Room room);
+
     void deleteAllInventories(Room room);
 
+    //Last day of the hotel's inventory horizon, capped at HotelDto.MAX_INVENTORY_HORIZON_DAYS.
+    LocalDate horizonEnd(Hotel hotel);
+
     Page<HotelPriceResponseDto> searchHotels(HotelSearchRequest hotelSearchRequest);
 
+    CursorPageDto<HotelPriceResponseDto> searchHotelsByCursor(HotelSearchRequest hotelSearchRequest);
+
     List<InventoryDto> getAllInventoryByRoom(Long roomId);
 
     void updateInventory(Long roomId, UpdateInventoryRequestDto updateInventoryRequestDto);
@@ -6,16 +6,26 @@ import com.example.demo.entity.Hotel;
 import com.example.demo.entity.Inventory;
 import com.example.demo.entity.Room;
 import com.example.demo.entity.User;
+import com.example.demo.entity.enums.InventoryChangeType;
+import com.example.demo.events.InventoryChangedEvent;
 import com.example.demo.exceptions.ResourceNotFoundException;
 import com.example.demo.repositories.HotelMinPriceRepository;
+import com.example.demo.repositories.HotelRepository;
 import com.example.demo.repositories.InventoryRepository;
 import com.example.demo.repositories.RoomRepository;
+import com.example.demo.util.CursorUtils;
 import jakarta.transaction.Transactional;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
 import lombok.Builder;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
@@ -43,36 +53,88 @@ public class InventoryServiceImpl implements InventoryService{
 
     private final HotelMinPriceRepository hotelMinPriceRepository;
 
+    private final HotelRepository hotelRepository;
+
+    private final AvailabilityIndex availabilityIndex;
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final HotelSearchCache hotelSearchCache;
+
+    private final InventoryPartitionService inventoryPartitionService;
+
+    @Value("${inventory.horizon-days:365}")
+    private int defaultHorizonDays;
+
     @Override
     public void initializeRoomForAYear(Room room) {
+        createInventory(room, LocalDate.now(), horizonEnd(room.getHotel()));
+    }
+
+    //Appends the days between the last inventory date of the room and the end of the hotel's horizon.
+    //Starting from the last existing date makes the call cheap to repeat, and the insert skips days that already exist.
+    @Override
+    public int extendInventoryHorizon(Room room) {
         LocalDate today = LocalDate.now();
-        LocalDate endDate = today.plusYears(1);
-        for (;!today.isAfter(endDate); today=today.plusDays(1)) {
-            Inventory inventory = Inventory.builder()
-                    .hotel(room.getHotel())
-                    .room(room)
-                    .bookedCount(0)
-                    .reservedCount(0)
-                    .city(room.getHotel().getCity())
-                    .date(today)
-                    .price(room.getBasePrice()) //room's base price does not change based on strategy, its the price in the inventory that changes.
-                    .surgeFactor(BigDecimal.ONE)
-                    .totalCount(room.getTotalCount())
-                    .closed(false)
-                    .build();
-            inventoryRepository.save(inventory);
+        LocalDate lastDate = inventoryRepository.findLastDateByRoomId(room.getId(), today);
+        LocalDate startDate = lastDate == null ? today : lastDate.plusDays(1);
+        LocalDate endDate = horizonEnd(room.getHotel());
+        if (startDate.isAfter(endDate)) return 0;
+
+        return createInventory(room, startDate, endDate);
+    }
+
+    private int createInventory(Room room, LocalDate startDate, LocalDate endDate) {
+        //the hotel's horizon may reach past the partitions the daily job created.
+        inventoryPartitionService.ensurePartitionsUntil(endDate);
+        //one INSERT ... SELECT over generate_series instead of one insert per day.
+        //room's base price does not change based on strategy, its the price in the inventory that changes.
+        int created = inventoryRepository.bulkInsertInventory(room.getHotel().getId(), room.getId(),
+                room.getHotel().getCity(), room.getTotalCount(), room.getBasePrice(), startDate, endDate);
+        log.info("Created {} inventory rows for room {} of hotel {}", created, room.getId(), room.getHotel().getId());
+
+        if (created > 0) {
+            eventPublisher.publishEvent(new InventoryChangedEvent(InventoryChangeType.CREATED, room.getHotel().getId(),
+                    room.getId(), room.getHotel().getCity(), startDate, endDate, null));
         }
+        return created;
+    }
+
+    @Override
+    public LocalDate horizonEnd(Hotel hotel) {
+        int horizonDays = hotel.getInventoryHorizonDays() != null ? hotel.getInventoryHorizonDays() : defaultHorizonDays;
+        // values stored before the bounds were validated are capped as well.
+        return LocalDate.now().plusDays(Math.min(horizonDays, HotelDto.MAX_INVENTORY_HORIZON_DAYS));
     }
 
     @Override
     public void deleteAllInventories(Room room) {
         inventoryRepository.deleteByRoom(room);
+
+        eventPublisher.publishEvent(new InventoryChangedEvent(InventoryChangeType.DELETED, room.getHotel().getId(),
+                room.getId(), room.getHotel().getCity(), null, null, null));
     }
 
     @Override
     public Page<HotelPriceResponseDto> searchHotels(HotelSearchRequest hotelSearchRequest) {
+        // same normalisation as the cache key.
+        if (hotelSearchRequest.getCity() != null) {
+            hotelSearchRequest.setCity(hotelSearchRequest.getCity().trim());
+        }
+        if (hotelSearchRequest.getRoomsCount() == null) {
+            hotelSearchRequest.setRoomsCount(1);
+        }
+        return hotelSearchCache.get(hotelSearchRequest, () -> searchHotelsUncached(hotelSearchRequest));
+    }
+
+    private Page<HotelPriceResponseDto> searchHotelsUncached(HotelSearchRequest hotelSearchRequest) {
         log.info("Searching hotels for {} city, from {} to {}", hotelSearchRequest.getCity(), hotelSearchRequest.getStartDate(), hotelSearchRequest.getEndDate());
         Pageable pageable = PageRequest.of(hotelSearchRequest.getPage(), hotelSearchRequest.getSize());
+
+        if (availabilityIndex.isReady()) {
+            return searchHotelsInIndex(hotelSearchRequest, pageable);
+        }
+
         long dateCount =
                 ChronoUnit.DAYS.between(hotelSearchRequest.getStartDate(), hotelSearchRequest.getEndDate()) + 1;
 
@@ -89,6 +151,91 @@ public class InventoryServiceImpl implements InventoryService{
         });
     }
 
+    //The availability and the prices come from memory, only the hotels of the requested page are read from the database.
+    private Page<HotelPriceResponseDto> searchHotelsInIndex(HotelSearchRequest hotelSearchRequest, Pageable pageable) {
+        int roomsCount = hotelSearchRequest.getRoomsCount() == null ? 1 : hotelSearchRequest.getRoomsCount();
+        List<HotelAvailabilityDto> availableHotels = availabilityIndex.findAvailableHotels(hotelSearchRequest.getCity(),
+                hotelSearchRequest.getStartDate(), hotelSearchRequest.getEndDate(), roomsCount);
+
+        int fromIndex = (int) Math.min(pageable.getOffset(), availableHotels.size());
+        int toIndex = Math.min(fromIndex + pageable.getPageSize(), availableHotels.size());
+        List<HotelAvailabilityDto> pageContent = availableHotels.subList(fromIndex, toIndex);
+
+        List<HotelPriceResponseDto> content = toHotelPriceResponses(pageContent);
+        return new PageImpl<>(content, pageable, availableHotels.size());
+    }
+
+    //Keyset pagination over (price, hotel id). Deep pages cost the same as the first one and no count query is run.
+    @Override
+    public CursorPageDto<HotelPriceResponseDto> searchHotelsByCursor(HotelSearchRequest hotelSearchRequest) {
+        log.info("Searching hotels by cursor for {} city, from {} to {}", hotelSearchRequest.getCity(),
+                hotelSearchRequest.getStartDate(), hotelSearchRequest.getEndDate());
+        int size = hotelSearchRequest.getSize();
+        int roomsCount = hotelSearchRequest.getRoomsCount() == null ? 1 : hotelSearchRequest.getRoomsCount();
+        long dateCount =
+                ChronoUnit.DAYS.between(hotelSearchRequest.getStartDate(), hotelSearchRequest.getEndDate()) + 1;
+
+        // the first page starts before every (price, id) pair since prices are never negative.
+        double lastPrice = -1;
+        long lastHotelId = 0;
+        if (hotelSearchRequest.getCursor() != null) {
+            Object[] cursor = CursorUtils.decode(hotelSearchRequest.getCursor(), Double.class, Long.class);
+            lastPrice = (Double) cursor[0];
+            lastHotelId = (Long) cursor[1];
+        }
+
+        List<HotelPriceResponseDto> hotels;
+        if (availabilityIndex.isReady()) {
+            double afterPrice = lastPrice;
+            long afterHotelId = lastHotelId;
+            List<HotelAvailabilityDto> availableHotels = availabilityIndex.findAvailableHotels(hotelSearchRequest.getCity(),
+                            hotelSearchRequest.getStartDate(), hotelSearchRequest.getEndDate(), roomsCount)
+                    .stream()
+                    .filter(hotel -> hotel.getPrice() > afterPrice
+                            || (hotel.getPrice() == afterPrice && hotel.getHotelId() > afterHotelId))
+                    .limit(size + 1)
+                    .toList();
+            hotels = toHotelPriceResponses(availableHotels);
+        } else {
+            hotels = hotelMinPriceRepository.findHotelsWithAvailableInventoryAfter(hotelSearchRequest.getCity(),
+                            hotelSearchRequest.getStartDate(), hotelSearchRequest.getEndDate(), roomsCount, dateCount,
+                            lastPrice, lastHotelId,
+                            Limit.of(size + 1))
+                    .stream()
+                    .map(hotelPriceDto -> {
+                        HotelPriceResponseDto hotelPriceResponseDto = modelMapper.map(hotelPriceDto.getHotel(), HotelPriceResponseDto.class);
+                        hotelPriceResponseDto.setPrice(hotelPriceDto.getPrice());
+                        return hotelPriceResponseDto;
+                    })
+                    .collect(Collectors.toList());
+        }
+
+        // one extra row was fetched to know whether there is a next page.
+        if (hotels.size() <= size) {
+            return new CursorPageDto<>(hotels, null, false);
+        }
+        List<HotelPriceResponseDto> content = hotels.subList(0, size);
+        HotelPriceResponseDto last = content.get(size - 1);
+        return new CursorPageDto<>(content, CursorUtils.encode(last.getPrice(), last.getId()), true);
+    }
+
+    //Loads the hotel details of the given matches in one query, keeping the order of the matches.
+    private List<HotelPriceResponseDto> toHotelPriceResponses(List<HotelAvailabilityDto> availableHotels) {
+        Map<Long, Hotel> hotels = hotelRepository.findAllById(availableHotels.stream().map(HotelAvailabilityDto::getHotelId).toList())
+                .stream()
+                .collect(Collectors.toMap(Hotel::getId, Function.identity()));
+
+        return availableHotels.stream()
+                .filter(availableHotel -> hotels.containsKey(availableHotel.getHotelId()))
+                .map(availableHotel -> {
+                    HotelPriceResponseDto hotelPriceResponseDto = modelMapper.map(hotels.get(availableHotel.getHotelId()),
+                            HotelPriceResponseDto.class);
+                    hotelPriceResponseDto.setPrice(availableHotel.getPrice());
+                    return hotelPriceResponseDto;
+                })
+                .collect(Collectors.toList());
+    }
+
     @Override
     public List<InventoryDto> getAllInventoryByRoom(Long roomId) {
         log.info("Getting All inventory by room for room with id: {}", roomId);
@@ -98,7 +245,7 @@ public class InventoryServiceImpl implements InventoryService{
         User user = getCurrentUser();
         if(!user.equals(room.getHotel().getOwner())) throw new AccessDeniedException("You are not the owner of room with id: "+roomId);
 
-        return inventoryRepository.findByRoomOrderByDate(room).stream()
+        return inventoryRepository.findByRoomAndDateGreaterThanEqualOrderByDate(room, LocalDate.now()).stream()
                 .map((element) -> modelMapper.map(element,
                         InventoryDto.class))
                 .collect(Collectors.toList());
@@ -122,6 +269,9 @@ public class InventoryServiceImpl implements InventoryService{
         inventoryRepository.updateInventory(roomId, updateInventoryRequestDto.getStartDate(),
                 updateInventoryRequestDto.getEndDate(), updateInventoryRequestDto.getClosed(),
                 updateInventoryRequestDto.getSurgeFactor());
+
+        eventPublisher.publishEvent(new InventoryChangedEvent(InventoryChangeType.UPDATED, room.getHotel().getId(), roomId,
+                room.getHotel().getCity(), updateInventoryRequestDto.getStartDate(), updateInventoryRequestDto.getEndDate(), null));
     }
 
 }
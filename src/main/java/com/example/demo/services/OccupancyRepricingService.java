@@ -0,0 +1,145 @@
+package com.example.demo.services;
+
+import com.example.demo.events.InventoryChangedEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+//Reprices the rows a confirmation, cancellation or manager update just marked priceDirty within seconds instead of
+//waiting for the hourly pricing run, so e.g. the occupancy surcharge applies as soon as a day passes 80% booked.
+//The committed InventoryChangedEvents are only collected here, coalesced per room type into one date range, and every
+//pricing.event.flush-ms the pending room types are repriced hotel by hotel through
+//PricingUpdateService.updateDirtyRoomPrices, at most pricing.event.parallelism hotels at a time.
+//Backpressure: the listener never blocks the booking or webhook thread and a flush only starts after the previous one
+//is done, so a burst of events just widens the pending ranges. At most pricing.event.max-pending-rooms room types
+//are pending; events beyond that are dropped and counted, their rows stay dirty and the hourly run reprices them.
+//Meters: pricing.event.pending (gauge), pricing.event.dropped (counter), pricing.event.flush.duration (timer).
+@Service
+@Slf4j
+public class OccupancyRepricingService {
+
+    private final PricingUpdateService pricingUpdateService;
+    private final boolean enabled;
+    private final int parallelism;
+    private final int maxPendingRooms;
+
+    private final ConcurrentHashMap<Long, PendingRoom> pendingRooms = new ConcurrentHashMap<>();
+    private final Counter droppedEvents;
+    private final Timer flushTimer;
+
+    public OccupancyRepricingService(PricingUpdateService pricingUpdateService,
+                                     MeterRegistry meterRegistry,
+                                     @Value("${pricing.event.enabled:true}") boolean enabled,
+                                     @Value("${pricing.event.parallelism:2}") int parallelism,
+                                     @Value("${pricing.event.max-pending-rooms:10000}") int maxPendingRooms) {
+        this.pricingUpdateService = pricingUpdateService;
+        this.enabled = enabled;
+        this.parallelism = parallelism;
+        this.maxPendingRooms = maxPendingRooms;
+
+        this.droppedEvents = Counter.builder("pricing.event.dropped").register(meterRegistry);
+        this.flushTimer = Timer.builder("pricing.event.flush.duration").register(meterRegistry);
+        Gauge.builder("pricing.event.pending", pendingRooms, Map::size).register(meterRegistry);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onInventoryChanged(InventoryChangedEvent event) {
+        if (!enabled || event.getRoomId() == null || event.getStartDate() == null) return;
+
+        switch (event.getType()) {
+            case CONFIRMED, CANCELLED, UPDATED -> enqueue(event);
+            default -> {
+                // free rooms only, or changes the pricing job already handles as a whole.
+            }
+        }
+    }
+
+    private void enqueue(InventoryChangedEvent event) {
+        LocalDate today = LocalDate.now();
+        LocalDate startDate = event.getStartDate().isBefore(today) ? today : event.getStartDate();
+        LocalDate endDate = event.getEndDate() != null ? event.getEndDate() : event.getStartDate();
+        if (endDate.isBefore(startDate)) return;
+
+        PendingRoom room = new PendingRoom(event.getHotelId(), startDate, endDate);
+        if (pendingRooms.size() >= maxPendingRooms && !pendingRooms.containsKey(event.getRoomId())) {
+            droppedEvents.increment();
+            log.debug("Repricing queue is full, room {} is left to the hourly pricing run", event.getRoomId());
+            return;
+        }
+        pendingRooms.merge(event.getRoomId(), room, PendingRoom::union);
+    }
+
+    @Scheduled(fixedDelayString = "${pricing.event.flush-ms:2000}")
+    public void flush() {
+        if (pendingRooms.isEmpty()) return;
+
+        // removing the entries one by one hands every change either to this flush or to the next one.
+        Map<Long, Map<Long, PendingRoom>> roomsByHotel = new HashMap<>();
+        for (Long roomId : pendingRooms.keySet()) {
+            PendingRoom room = pendingRooms.remove(roomId);
+            if (room != null) {
+                roomsByHotel.computeIfAbsent(room.hotelId(), hotelId -> new HashMap<>()).put(roomId, room);
+            }
+        }
+
+        long start = System.nanoTime();
+        Semaphore permits = new Semaphore(parallelism);
+        // closing the executor waits until every hotel is done, so flushes never overlap.
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (Map.Entry<Long, Map<Long, PendingRoom>> hotel : roomsByHotel.entrySet()) {
+                permits.acquire();
+                executor.execute(() -> {
+                    try {
+                        repriceHotel(hotel.getKey(), hotel.getValue());
+                    } finally {
+                        permits.release();
+                    }
+                });
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            flushTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+        log.debug("Repriced the dirty inventory of {} hotels after inventory changes in {} ms", roomsByHotel.size(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    //one transaction per hotel over the union of its room types' date ranges; only dirty rows of those rooms change.
+    private void repriceHotel(Long hotelId, Map<Long, PendingRoom> rooms) {
+        List<Long> roomIds = new ArrayList<>(rooms.keySet());
+        PendingRoom range = rooms.values().stream().reduce(PendingRoom::union).orElseThrow();
+        try {
+            pricingUpdateService.updateDirtyRoomPrices(hotelId, roomIds, range.startDate(), range.endDate());
+        } catch (Exception e) {
+            // the rows stay dirty, the hourly run picks them up.
+            log.warn("Could not reprice rooms {} of hotel {} after an inventory change", roomIds, hotelId, e);
+        }
+    }
+
+    private record PendingRoom(Long hotelId, LocalDate startDate, LocalDate endDate) {
+
+        PendingRoom union(PendingRoom other) {
+            return new PendingRoom(hotelId,
+                    startDate.isBefore(other.startDate) ? startDate : other.startDate,
+                    endDate.isAfter(other.endDate) ? endDate : other.endDate);
+        }
+    }
+}
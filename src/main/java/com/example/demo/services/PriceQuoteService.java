@@ -0,0 +1,121 @@
+package com.example.demo.services;
+
+import com.example.demo.dto.BookingRequest;
+import com.example.demo.entity.Hotel;
+import com.example.demo.entity.Inventory;
+import com.example.demo.exceptions.BadRequestException;
+import com.example.demo.exceptions.PriceQuoteExpiredException;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.crypto.SecretKey;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+
+//Price quotes are signed, short lived tokens with the nightly prices of a room the hotel info page showed.
+//A booking that comes with a valid quote is charged those prices instead of pricing the reserved rows again, so search
+//and booking agree and the booking path does no pricing work. While the hotel's pricing epoch, bumped by every
+//repricing of the hotel, is still the one the quote was made with, its prices are taken as they are. The epoch covers
+//the whole hotel, so once it moved the quoted prices are compared with the reserved rows and the quote is only
+//refused when a night's price actually changed.
+//Quotes are handed out on public pages, so they must never pass as login tokens: they are signed with a key of their
+//own (pricing.quote.secret-key, which may not be the jwt.secretKey), carry the QUOTE_AUDIENCE, which JWTService
+//rejects, and keep the room id in a claim instead of the subject.
+@Service
+public class PriceQuoteService {
+
+    public static final String QUOTE_AUDIENCE = "price-quote";
+
+    private final SecretKey secretKey;
+    private final long ttlMillis;
+
+    public PriceQuoteService(@Value("${pricing.quote.secret-key}") String secretKey,
+                             @Value("${jwt.secretKey}") String jwtSecretKey,
+                             @Value("${pricing.quote.ttl-seconds:900}") long ttlSeconds) {
+        if (secretKey.equals(jwtSecretKey)) {
+            throw new IllegalStateException("pricing.quote.secret-key must differ from jwt.secretKey");
+        }
+        this.secretKey = Keys.hmacShaKeyFor(secretKey.getBytes(StandardCharsets.UTF_8));
+        this.ttlMillis = ttlSeconds * 1000;
+    }
+
+    //inventoryList holds one row of the room for every night between startDate and endDate, in date order.
+    public String createQuote(Hotel hotel, Long roomId, LocalDate startDate, LocalDate endDate,
+                              List<Inventory> inventoryList) {
+        long now = System.currentTimeMillis();
+        return Jwts.builder()
+                .audience().add(QUOTE_AUDIENCE).and()
+                .claim("roomId", roomId)
+                .claim("hotelId", hotel.getId())
+                .claim("startDate", startDate.toString())
+                .claim("endDate", endDate.toString())
+                .claim("prices", inventoryList.stream().map(inventory -> inventory.getPrice().toPlainString()).toList())
+                .claim("epoch", hotel.getPricingEpoch())
+                .issuedAt(new Date(now))
+                .expiration(new Date(now + ttlMillis))
+                .signWith(secretKey)
+                .compact();
+    }
+
+    //Returns the quoted nightly prices for the booking request, or throws when the quote cannot be used.
+    //A quote from an older pricing epoch still has to pass checkPrices once the rows are reserved.
+    public PriceQuote getQuote(String quoteToken, Hotel hotel, BookingRequest bookingRequest) {
+        Claims claims;
+        try {
+            claims = Jwts.parser()
+                    .verifyWith(secretKey)
+                    .requireAudience(QUOTE_AUDIENCE)
+                    .build()
+                    .parseSignedClaims(quoteToken)
+                    .getPayload();
+        } catch (ExpiredJwtException e) {
+            throw new PriceQuoteExpiredException("The price quote has expired, please check the prices again");
+        } catch (JwtException e) {
+            throw new BadRequestException("Invalid price quote");
+        }
+
+        if (!hotel.getId().equals(claims.get("hotelId", Long.class))
+                || !bookingRequest.getRoomId().equals(claims.get("roomId", Long.class))
+                || !bookingRequest.getCheckInDate().toString().equals(claims.get("startDate", String.class))
+                || !bookingRequest.getCheckOutDate().toString().equals(claims.get("endDate", String.class))) {
+            throw new BadRequestException("The price quote is for a different room or different dates");
+        }
+
+        List<?> prices = claims.get("prices", List.class);
+        long nights = ChronoUnit.DAYS.between(bookingRequest.getCheckInDate(), bookingRequest.getCheckOutDate()) + 1;
+        if (prices == null || prices.size() != nights) {
+            throw new BadRequestException("Invalid price quote");
+        }
+        return new PriceQuote(prices.stream().map(price -> new BigDecimal(price.toString())).toList(),
+                !hotel.getPricingEpoch().equals(claims.get("epoch", Long.class)));
+    }
+
+    //inventoryList holds the reserved rows of the quoted nights. Throws when the hotel was repriced since the quote
+    //and the price of one of its nights is not the quoted one anymore.
+    public void checkPrices(PriceQuote quote, List<Inventory> inventoryList) {
+        if (!quote.repricedSince()) return;
+
+        List<Inventory> nights = inventoryList.stream().sorted(Comparator.comparing(Inventory::getDate)).toList();
+        boolean changed = nights.size() != quote.prices().size();
+        for (int i = 0; !changed && i < nights.size(); i++) {
+            changed = nights.get(i).getPrice().compareTo(quote.prices().get(i)) != 0;
+        }
+        if (changed) {
+            throw new PriceQuoteExpiredException("The prices of this room have changed, please check the prices again");
+        }
+    }
+
+    //prices holds the quoted nightly prices in date order.
+    public record PriceQuote(List<BigDecimal> prices, boolean repricedSince) {
+    }
+}
@@ -0,0 +1,9 @@
+package com.example.demo.services;
+
+import com.example.demo.dto.PricingSimulationRequestDto;
+import com.example.demo.dto.PricingSimulationResultDto;
+
+public interface PricingSimulationService {
+
+    PricingSimulationResultDto simulate(Long hotelId, PricingSimulationRequestDto simulationRequest);
+}
@@ -0,0 +1,212 @@
+package com.example.demo.services;
+
+import com.example.demo.dto.DailyPriceDeltaDto;
+import com.example.demo.dto.InventoryPricingRowDto;
+import com.example.demo.dto.PricingSimulationRequestDto;
+import com.example.demo.dto.PricingSimulationResultDto;
+import com.example.demo.entity.Hotel;
+import com.example.demo.entity.Inventory;
+import com.example.demo.entity.Room;
+import com.example.demo.entity.User;
+import com.example.demo.exceptions.BadRequestException;
+import com.example.demo.exceptions.ResourceNotFoundException;
+import com.example.demo.exceptions.UnAuthorisedException;
+import com.example.demo.repositories.HotelRepository;
+import com.example.demo.repositories.InventoryRepository;
+import com.example.demo.strategy.PricingPipeline;
+import com.example.demo.strategy.PricingStrategyRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static com.example.demo.util.AppUtils.getCurrentUser;
+
+//What-if pricing for revenue managers: prices a hotel's inventory with a proposed strategy order and surge factors
+//and compares the result with the prices it has today. Nothing is written.
+//The inventory is read once, as a projection, into one array per column. Every row is then priced through a reused
+//Inventory object, so the pricing strategies run unchanged without an entity per row, and large hotels are priced in
+//chunks in parallel (pricing.simulation.parallel-threshold rows and up).
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class PricingSimulationServiceImpl implements PricingSimulationService {
+
+    private static final int CHUNK_SIZE = 4096;
+
+    private final HotelRepository hotelRepository;
+    private final InventoryRepository inventoryRepository;
+    private final PricingStrategyRegistry pricingStrategyRegistry;
+
+    @Value("${pricing.simulation.parallel-threshold:10000}")
+    private int parallelThreshold;
+
+    @Override
+    public PricingSimulationResultDto simulate(Long hotelId, PricingSimulationRequestDto simulationRequest) {
+        long start = System.nanoTime();
+        Hotel hotel = hotelRepository
+                .findById(hotelId)
+                .orElseThrow(() -> new ResourceNotFoundException("Hotel not found with ID: " + hotelId));
+
+        User user = getCurrentUser();
+        if (!user.equals(hotel.getOwner())) {
+            throw new UnAuthorisedException("This user does not own this hotel with id: " + hotelId);
+        }
+
+        List<String> strategyOrder = simulationRequest.getStrategyOrder();
+        PricingPipeline pipeline = strategyOrder == null || strategyOrder.isEmpty()
+                ? pricingStrategyRegistry.getPipeline()
+                : buildPipeline(strategyOrder);
+
+        LocalDate startDate = simulationRequest.getStartDate() != null ? simulationRequest.getStartDate() : LocalDate.now();
+        LocalDate endDate = simulationRequest.getEndDate() != null ? simulationRequest.getEndDate() : startDate.plusYears(1);
+        if (endDate.isBefore(startDate)) {
+            throw new BadRequestException("The end date of the simulation is before its start date");
+        }
+
+        InventoryColumns columns = new InventoryColumns(inventoryRepository.findPricingRows(hotelId, startDate, endDate),
+                simulationRequest);
+        BigDecimal[] simulatedPrices = columns.price(pipeline, columns.size >= parallelThreshold);
+        List<DailyPriceDeltaDto> days = columns.dailyDeltas(simulatedPrices);
+
+        BigDecimal currentRevenue = days.stream().map(DailyPriceDeltaDto::getCurrentRevenue)
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        BigDecimal projectedRevenue = days.stream().map(DailyPriceDeltaDto::getProjectedRevenue)
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        log.info("Simulated {} inventory rows of hotel {} with {} in {} ms", columns.size, hotelId,
+                pipeline.getStrategyNames(), elapsedMillis);
+        return new PricingSimulationResultDto(hotelId, pipeline.getStrategyNames(), columns.size, currentRevenue,
+                projectedRevenue, days, elapsedMillis);
+    }
+
+    //the strategy names come from the owner, an unknown name or a wrong order is their mistake.
+    private PricingPipeline buildPipeline(List<String> strategyOrder) {
+        try {
+            return pricingStrategyRegistry.buildPipeline(strategyOrder);
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException(e.getMessage());
+        }
+    }
+
+    //The inventory of the hotel sorted by date, one array per column. Dates and room types are stored once and
+    //referenced by index. The proposed surge factors are applied while loading.
+    private static final class InventoryColumns {
+
+        final int size;
+        final LocalDate[] dates;
+        final int[] dateIndex;
+        final Room[] rooms; // only id and base price, which is all the strategies read of a room.
+        final int[] roomIndex;
+        final String[] cities;
+        final int[] bookedCounts;
+        final int[] totalCounts;
+        final boolean[] closed;
+        final BigDecimal[] surgeFactors;
+        final BigDecimal[] currentPrices;
+
+        InventoryColumns(List<InventoryPricingRowDto> rows, PricingSimulationRequestDto simulationRequest) {
+            size = rows.size();
+            dateIndex = new int[size];
+            roomIndex = new int[size];
+            cities = new String[size];
+            bookedCounts = new int[size];
+            totalCounts = new int[size];
+            closed = new boolean[size];
+            surgeFactors = new BigDecimal[size];
+            currentPrices = new BigDecimal[size];
+
+            Map<Long, BigDecimal> surgeFactorsByRoom = simulationRequest.getSurgeFactorsByRoom() != null
+                    ? simulationRequest.getSurgeFactorsByRoom() : Map.of();
+            List<LocalDate> distinctDates = new ArrayList<>();
+            Map<Long, Integer> roomIndexById = new HashMap<>();
+            List<Room> distinctRooms = new ArrayList<>();
+
+            for (int i = 0; i < size; i++) {
+                InventoryPricingRowDto row = rows.get(i);
+                // rows come sorted by date.
+                if (distinctDates.isEmpty() || !distinctDates.get(distinctDates.size() - 1).equals(row.getDate())) {
+                    distinctDates.add(row.getDate());
+                }
+                dateIndex[i] = distinctDates.size() - 1;
+                roomIndex[i] = roomIndexById.computeIfAbsent(row.getRoomId(), roomId -> {
+                    Room room = new Room();
+                    room.setId(roomId);
+                    room.setBasePrice(row.getBasePrice());
+                    distinctRooms.add(room);
+                    return distinctRooms.size() - 1;
+                });
+                cities[i] = row.getCity();
+                bookedCounts[i] = row.getBookedCount();
+                totalCounts[i] = row.getTotalCount();
+                closed[i] = Boolean.TRUE.equals(row.getClosed());
+                currentPrices[i] = row.getPrice();
+
+                BigDecimal surgeFactor = surgeFactorsByRoom.get(row.getRoomId());
+                if (surgeFactor == null) surgeFactor = simulationRequest.getSurgeFactor();
+                surgeFactors[i] = surgeFactor != null ? surgeFactor : row.getSurgeFactor();
+            }
+            dates = distinctDates.toArray(new LocalDate[0]);
+            rooms = distinctRooms.toArray(new Room[0]);
+        }
+
+        //prices rounded to paise, like the price column keeps them.
+        BigDecimal[] price(PricingPipeline pipeline, boolean parallel) {
+            BigDecimal[] prices = new BigDecimal[size];
+            int chunks = (size + CHUNK_SIZE - 1) / CHUNK_SIZE;
+            IntStream chunkIndexes = IntStream.range(0, chunks);
+            (parallel ? chunkIndexes.parallel() : chunkIndexes).forEach(chunk ->
+                    priceRows(pipeline, prices, chunk * CHUNK_SIZE, Math.min(size, (chunk + 1) * CHUNK_SIZE)));
+            return prices;
+        }
+
+        private void priceRows(PricingPipeline pipeline, BigDecimal[] prices, int from, int to) {
+            Inventory row = new Inventory(); // one per chunk, the strategies only read it.
+            for (int i = from; i < to; i++) {
+                row.setRoom(rooms[roomIndex[i]]);
+                row.setDate(dates[dateIndex[i]]);
+                row.setCity(cities[i]);
+                row.setBookedCount(bookedCounts[i]);
+                row.setTotalCount(totalCounts[i]);
+                row.setClosed(closed[i]);
+                row.setSurgeFactor(surgeFactors[i]);
+                row.setPrice(currentPrices[i]);
+                prices[i] = pipeline.price(row).setScale(2, RoundingMode.HALF_UP);
+            }
+        }
+
+        //Revenue is price * booked rooms, i.e. at the occupancy the hotel has today.
+        List<DailyPriceDeltaDto> dailyDeltas(BigDecimal[] simulatedPrices) {
+            List<DailyPriceDeltaDto> days = new ArrayList<>(dates.length);
+            int i = 0;
+            for (int day = 0; day < dates.length; day++) {
+                BigDecimal currentTotal = BigDecimal.ZERO;
+                BigDecimal simulatedTotal = BigDecimal.ZERO;
+                BigDecimal currentRevenue = BigDecimal.ZERO;
+                BigDecimal projectedRevenue = BigDecimal.ZERO;
+                int roomTypes = 0;
+                for (; i < size && dateIndex[i] == day; i++, roomTypes++) {
+                    BigDecimal booked = BigDecimal.valueOf(bookedCounts[i]);
+                    currentTotal = currentTotal.add(currentPrices[i]);
+                    simulatedTotal = simulatedTotal.add(simulatedPrices[i]);
+                    currentRevenue = currentRevenue.add(currentPrices[i].multiply(booked));
+                    projectedRevenue = projectedRevenue.add(simulatedPrices[i].multiply(booked));
+                }
+                BigDecimal count = BigDecimal.valueOf(roomTypes);
+                BigDecimal currentAverage = currentTotal.divide(count, 2, RoundingMode.HALF_UP);
+                BigDecimal simulatedAverage = simulatedTotal.divide(count, 2, RoundingMode.HALF_UP);
+                days.add(new DailyPriceDeltaDto(dates[day], currentAverage, simulatedAverage,
+                        simulatedAverage.subtract(currentAverage), currentRevenue, projectedRevenue));
+            }
+            return days;
+        }
+    }
+}
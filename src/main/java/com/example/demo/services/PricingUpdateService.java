@@ -1,103 +1,301 @@
 package com.example.demo.services;
 
 import com.example.demo.entity.Hotel;
-import com.example.demo.entity.HotelMinPrice;
 import com.example.demo.entity.Inventory;
-import com.example.demo.repositories.HotelMinPriceRepository;
+import com.example.demo.entity.enums.InventoryChangeType;
+import com.example.demo.entity.enums.RepricingMode;
+import com.example.demo.events.HolidaysChangedEvent;
+import com.example.demo.events.InventoryChangedEvent;
 import com.example.demo.repositories.HotelRepository;
 import com.example.demo.repositories.InventoryRepository;
 import com.example.demo.strategy.PricingService;
+import com.example.demo.strategy.UrgencyPricingStrategy;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import jakarta.transaction.Transactional;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageRequest;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
-import java.util.ArrayList;
-import java.util.Comparator;
+import java.util.Collection;
 import java.util.List;
-import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
+//Reprices the inventory and HotelMinPrice rows of the hotels.
+//Every hour only the inventory rows marked priceDirty are repriced, together with the HotelMinPrice rows of their days.
+//Rows are marked dirty by the changes that can move a price: a booking or cancellation taking the occupancy across
+//the occupancy threshold, a surge factor or closed change, a room base price change and a holiday change. Days entering
+//the urgency window are marked by the job itself. A full sweep over every hotel's whole horizon still runs nightly
+//(pricing.full-sweep.cron) as a fallback, e.g. for edits of the holiday calendar file.
+//With pricing.update.mode=SQL hotels are repriced by SqlRepricingService with one UPDATE per hotel instead of
+//through the entities, as long as every enabled strategy has a SQL form.
+//Every hotel is repriced in a transaction of its own on a virtual thread, at most pricing.update.parallelism hotels
+//at a time. Hotel ids are read in keyset batches and a new batch is only read once the previous one has been handed
+//out, so the job holds at most one batch of ids and parallelism hotels' inventory in memory, however many hotels there
+//are. A hotel that fails is logged and counted, it does not stop the others, and the next run reprices it again.
+//Meters: pricing.update.duration{mode=dirty|full} and pricing.update.hotel.duration (timers),
+//pricing.update.hotels{outcome} (counter), pricing.update.progress (hotels done in the current run) and
+//pricing.update.running (gauges).
 @Service
-@RequiredArgsConstructor
 @Slf4j
 @EnableScheduling
-@Transactional
 public class PricingUpdateService {
 
-    // Scheduler to update the inventory and HotelMinPrice tables every hour
-
     private final HotelRepository hotelRepository;
     private final InventoryRepository inventoryRepository;
-    private final HotelMinPriceRepository hotelMinPriceRepository;
+    private final HotelMinPriceService hotelMinPriceService;
     private final PricingService pricingService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final SqlRepricingService sqlRepricingService;
+    private final InventoryService inventoryService;
+
+    private final int parallelism;
+    private final int batchSize;
+    private final boolean fullSweepEnabled;
+    private final RepricingMode repricingMode;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final AtomicInteger progress = new AtomicInteger();
+    private final MeterRegistry meterRegistry;
+    private final Timer hotelTimer;
+    private final Counter repricedHotels;
+    private final Counter failedHotels;
+
+    private volatile LocalDate urgencyWindowMarkedUntil; // last day already marked dirty for entering the urgency window.
+
+    public PricingUpdateService(HotelRepository hotelRepository,
+                                InventoryRepository inventoryRepository,
+                                HotelMinPriceService hotelMinPriceService,
+                                PricingService pricingService,
+                                ApplicationEventPublisher eventPublisher,
+                                TransactionTemplate transactionTemplate,
+                                SqlRepricingService sqlRepricingService,
+                                InventoryService inventoryService,
+                                MeterRegistry meterRegistry,
+                                @Value("${pricing.update.parallelism:8}") int parallelism,
+                                @Value("${pricing.update.batch-size:100}") int batchSize,
+                                @Value("${pricing.full-sweep.enabled:true}") boolean fullSweepEnabled,
+                                @Value("${pricing.update.mode:ENTITY}") RepricingMode repricingMode) {
+        this.hotelRepository = hotelRepository;
+        this.inventoryRepository = inventoryRepository;
+        this.hotelMinPriceService = hotelMinPriceService;
+        this.pricingService = pricingService;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = transactionTemplate;
+        this.sqlRepricingService = sqlRepricingService;
+        this.inventoryService = inventoryService;
+        this.parallelism = parallelism;
+        this.batchSize = batchSize;
+        this.fullSweepEnabled = fullSweepEnabled;
+        this.repricingMode = repricingMode;
+        this.meterRegistry = meterRegistry;
 
-    //    @Scheduled(cron = "*/5 * * * * *")
-    @Scheduled(cron = "0 0 * * * *")
+        this.hotelTimer = Timer.builder("pricing.update.hotel.duration").register(meterRegistry);
+        this.repricedHotels = Counter.builder("pricing.update.hotels").tag("outcome", "repriced").register(meterRegistry);
+        this.failedHotels = Counter.builder("pricing.update.hotels").tag("outcome", "failed").register(meterRegistry);
+        Gauge.builder("pricing.update.progress", progress, AtomicInteger::get).register(meterRegistry);
+        Gauge.builder("pricing.update.running", running, flag -> flag.get() ? 1 : 0).register(meterRegistry);
+    }
+
+    @Scheduled(cron = "${pricing.update.cron:0 0 * * * *}")
+    public void updateDirtyPrices() {
+        markUrgencyWindowDirty();
+        LocalDate today = LocalDate.now();
+        run("dirty", (lastHotelId, limit) -> inventoryRepository.findHotelIdsWithDirtyInventory(today, lastHotelId, limit),
+                useSql() ? hotel -> repriceInSql(hotel, true) : this::updateDirtyHotelPrices);
+    }
+
+    @Scheduled(cron = "${pricing.full-sweep.cron:0 30 3 * * *}") // half past, so it does not collide with the hourly run.
     public void updatePrices() {
-        int page = 0;
-        int batchSize = 100;
+        if (!fullSweepEnabled) return;
+        run("full", hotelRepository::findHotelIdsAfter,
+                useSql() ? hotel -> repriceInSql(hotel, false) : this::updateHotelPrices);
+    }
 
-        while(true) {
-            Page<Hotel> hotelPage = hotelRepository.findAll(PageRequest.of(page, batchSize));
-            if(hotelPage.isEmpty()) {
-                break;
-            }
-            hotelPage.getContent().forEach(this::updateHotelPrices);
+    //A holiday change only marks the rows of its day, the next hourly run reprices them.
+    @TransactionalEventListener(fallbackExecution = true)
+    @Transactional(Transactional.TxType.REQUIRES_NEW)
+    public void onHolidaysChanged(HolidaysChangedEvent event) {
+        int marked = event.getCity() == null
+                ? inventoryRepository.markPricesDirtyOn(event.getDate())
+                : inventoryRepository.markPricesDirtyOnInCity(event.getDate(), event.getCity());
+        log.debug("Marked {} inventory rows on {} dirty after a holiday change", marked, event.getDate());
+    }
 
-            page++;
+    private void run(String mode, BiFunction<Long, Limit, List<Long>> hotelIdsAfter, Consumer<Hotel> repricing) {
+        if (!running.compareAndSet(false, true)) {
+            log.warn("The previous pricing run is still going, skipping this {} run", mode);
+            return;
+        }
+        progress.set(0);
+        long start = System.nanoTime();
+        AtomicInteger failures = new AtomicInteger();
+        try {
+            repriceHotels(hotelIdsAfter, repricing, failures);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("Pricing run interrupted after {} hotels", progress.get());
+        } finally {
+            long duration = System.nanoTime() - start;
+            Timer.builder("pricing.update.duration").tag("mode", mode).register(meterRegistry)
+                    .record(duration, TimeUnit.NANOSECONDS);
+            running.set(false);
+            log.info("Repriced {} hotels ({} failed) in a {} run in {} ms", progress.get() - failures.get(),
+                    failures.get(), mode, TimeUnit.NANOSECONDS.toMillis(duration));
         }
     }
 
-    private void updateHotelPrices(Hotel hotel) {
-        log.info("Updating hotel prices for hotel ID: {}", hotel.getId());
-        LocalDate startDate = LocalDate.now();
-        LocalDate endDate = LocalDate.now().plusYears(1);
+    private void repriceHotels(BiFunction<Long, Limit, List<Long>> hotelIdsAfter, Consumer<Hotel> repricing,
+                               AtomicInteger failures) throws InterruptedException {
+        Semaphore permits = new Semaphore(parallelism);
+        // closing the executor waits until every submitted hotel is done.
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            Long lastHotelId = 0L;
+            List<Long> hotelIds;
+            do {
+                hotelIds = hotelIdsAfter.apply(lastHotelId, Limit.of(batchSize));
+                for (Long hotelId : hotelIds) {
+                    permits.acquire();
+                    executor.execute(() -> {
+                        try {
+                            if (!repriceHotel(hotelId, repricing)) failures.incrementAndGet();
+                        } finally {
+                            progress.incrementAndGet();
+                            permits.release();
+                        }
+                    });
+                }
+                if (!hotelIds.isEmpty()) lastHotelId = hotelIds.get(hotelIds.size() - 1);
+            } while (hotelIds.size() == batchSize);
+        }
+    }
+
+    //Every day one more day enters the urgency window. Marks the days that entered it since the last run,
+    //the whole window after a restart.
+    private void markUrgencyWindowDirty() {
+        LocalDate today = LocalDate.now();
+        LocalDate windowEnd = today.plusDays(UrgencyPricingStrategy.URGENCY_WINDOW_DAYS - 1);
+        LocalDate from = urgencyWindowMarkedUntil == null || urgencyWindowMarkedUntil.isBefore(today)
+                ? today : urgencyWindowMarkedUntil.plusDays(1);
+        if (from.isAfter(windowEnd)) return;
+
+        Integer marked = transactionTemplate.execute(status -> inventoryRepository.markPricesDirtyBetween(from, windowEnd));
+        urgencyWindowMarkedUntil = windowEnd;
+        log.debug("Marked {} inventory rows between {} and {} dirty for the urgency window", marked, from, windowEnd);
+    }
+
+    private boolean repriceHotel(Long hotelId, Consumer<Hotel> repricing) {
+        long start = System.nanoTime();
+        try {
+            transactionTemplate.executeWithoutResult(status -> hotelRepository.findById(hotelId)
+                    .ifPresent(repricing));
+            repricedHotels.increment();
+            return true;
+        } catch (Exception e) {
+            failedHotels.increment();
+            log.error("Could not update the prices of hotel {}", hotelId, e);
+            return false;
+        } finally {
+            hotelTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private boolean useSql() {
+        if (repricingMode != RepricingMode.SQL) return false;
+        if (sqlRepricingService.isAvailable()) return true;
+
+        log.warn("pricing.update.mode is SQL but some pricing strategies can only run in Java, repricing through the entities");
+        return false;
+    }
 
-        List<Inventory> inventoryList = inventoryRepository.findByHotelAndDateBetween(hotel, startDate, endDate);
+    private void repriceInSql(Hotel hotel, boolean dirtyOnly) {
+        int repriced = sqlRepricingService.repriceHotel(hotel, LocalDate.now(), pricingEnd(hotel), dirtyOnly);
+        if (repriced > 0) {
+            pricesChanged(hotel);
+        }
+    }
+
+    private void updateHotelPrices(Hotel hotel) {
+        log.debug("Updating hotel prices for hotel ID: {}", hotel.getId());
+        List<Inventory> inventoryList = inventoryRepository.findByHotelAndDateBetween(hotel, LocalDate.now(), pricingEnd(hotel));
 
         updateInventoryPrices(inventoryList);
 
-        updateHotelMinPrice(hotel, inventoryList, startDate, endDate);
+        hotelMinPriceService.updateHotelMinPrice(hotel, inventoryList);
+
+        pricesChanged(hotel);
     }
 
-    private void updateHotelMinPrice(Hotel hotel, List<Inventory> inventoryList, LocalDate startDate, LocalDate endDate) {
-        // Compute minimum price per day for the hotel
-        Map<LocalDate, BigDecimal> dailyMinPrices = inventoryList.stream()
-                .collect(Collectors.groupingBy(
-                        Inventory::getDate,
-                        Collectors.mapping(Inventory::getPrice, Collectors.minBy(Comparator.naturalOrder()))
-                ))
-                .entrySet().stream()
-                .collect(Collectors.toMap(Map.Entry::getKey, e -> e.getValue().orElse(BigDecimal.ZERO)));
+    //Reprices the dirty rows of some room types of a hotel between two dates right away, in a transaction of its own.
+    //Used by OccupancyRepricingService after bookings; rows it does not get to stay dirty for the hourly run.
+    public void updateDirtyRoomPrices(Long hotelId, Collection<Long> roomIds, LocalDate startDate, LocalDate endDate) {
+        boolean sql = useSql();
+        transactionTemplate.executeWithoutResult(status -> hotelRepository.findById(hotelId).ifPresent(hotel -> {
+            if (sql) {
+                if (sqlRepricingService.repriceDirtyRooms(hotel, roomIds, startDate, endDate) > 0) pricesChanged(hotel);
+            } else {
+                updateDirtyPrices(hotel, inventoryRepository.findAndLockDirtyRoomInventory(roomIds, startDate, endDate));
+            }
+        }));
+    }
+
+    private void updateDirtyHotelPrices(Hotel hotel) {
+        updateDirtyPrices(hotel, inventoryRepository.findAndLockDirtyInventory(hotel.getId(), LocalDate.now()));
+    }
+
+    //Reprices the dirty rows of the hotel and rewrites the HotelMinPrice rows of their days.
+    private void updateDirtyPrices(Hotel hotel, List<Inventory> dirtyInventory) {
+        if (dirtyInventory.isEmpty()) return;
 
-        // Prepare HotelPrice entities in bulk
-        List<HotelMinPrice> hotelPrices = new ArrayList<>();
+        dirtyInventory.forEach(inventory -> inventory.setPriceDirty(false));
+        updateInventoryPrices(dirtyInventory);
 
-        dailyMinPrices.forEach((date, price) -> {
-            HotelMinPrice hotelPrice = hotelMinPriceRepository.findByHotelAndDate(hotel, date)
-                    .orElse(new HotelMinPrice(hotel, date));//we check if the entry already exists inside the
-                                                        //hotelMinRepository table otherwise make an entry.
-            hotelPrice.setPrice(price); // put the updated minimum price.
-            hotelPrices.add(hotelPrice); // put another hotelMinPrice entity
-        });
+        Set<LocalDate> dates = dirtyInventory.stream().map(Inventory::getDate).collect(Collectors.toSet());
+        hotelMinPriceService.updateHotelMinPrice(hotel, inventoryRepository.findByHotelAndDateIn(hotel, dates));
 
-        // Save all HotelPrice entities in bulk
-        hotelMinPriceRepository.saveAll(hotelPrices); // save all of the entries.
+        pricesChanged(hotel);
     }
 
+    //runs in the hotel's transaction, quotes made with the old prices stop being accepted when it commits.
+    private void pricesChanged(Hotel hotel) {
+        hotelRepository.incrementPricingEpoch(hotel.getId());
+        eventPublisher.publishEvent(InventoryChangedEvent.forHotel(InventoryChangeType.REPRICED, hotel.getId(), hotel.getCity()));
+    }
+
+    //Every future row is priced: after a hotel shortened its horizon, the rows created past the new end stay bookable.
+    private LocalDate pricingEnd(Hotel hotel) {
+        LocalDate horizonEnd = inventoryService.horizonEnd(hotel);
+        LocalDate lastDate = inventoryRepository.findLastDateByHotelId(hotel.getId(), LocalDate.now());
+        return lastDate != null && lastDate.isAfter(horizonEnd) ? lastDate : horizonEnd;
+    }
+
+    //The full sweep leaves the dirty flags alone: a row marked while it was being read here is repriced again
+    //by the next hourly run instead of losing its change.
     private void updateInventoryPrices(List<Inventory> inventoryList) {
-        inventoryList.forEach(inventory -> {
-            BigDecimal dynamicPrice = pricingService.calculateDynamicPricing(inventory);
-            inventory.setPrice(dynamicPrice);
-        });
+        List<BigDecimal> dynamicPrices = pricingService.calculateDynamicPricing(inventoryList);
+        for (int i = 0; i < inventoryList.size(); i++) {
+            inventoryList.get(i).setPrice(dynamicPrices.get(i));
+        }
         inventoryRepository.saveAll(inventoryList);
-        log.info("batch price updated");
     }
 }
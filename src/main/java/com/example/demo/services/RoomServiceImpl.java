@@ -7,6 +7,7 @@ import com.example.demo.entity.User;
 import com.example.demo.exceptions.ResourceNotFoundException;
 import com.example.demo.exceptions.UnAuthorisedException;
 import com.example.demo.repositories.HotelRepository;
+import com.example.demo.repositories.InventoryRepository;
 import com.example.demo.repositories.RoomRepository;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
@@ -15,6 +16,8 @@ import org.modelmapper.ModelMapper;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 
+import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -28,6 +31,7 @@ public class RoomServiceImpl implements RoomService {
     private final RoomRepository roomRepository;
     private final HotelRepository hotelRepository;
     private final InventoryService inventoryService;
+    private final InventoryRepository inventoryRepository;
     private final ModelMapper modelMapper;
 
     @Transactional
@@ -124,12 +128,17 @@ public class RoomServiceImpl implements RoomService {
 
         Room room = roomRepository.findById(roomId)
                 .orElseThrow(() -> new ResourceNotFoundException("Room not found with ID: "+roomId));
+        BigDecimal oldBasePrice = room.getBasePrice();
 
         modelMapper.map(roomDto, room);
         room.setId(roomId);
 
         room = roomRepository.save(room);
 
+        if (oldBasePrice == null || oldBasePrice.compareTo(room.getBasePrice()) != 0) {
+            inventoryRepository.markRoomPricesDirty(roomId, LocalDate.now()); // repriced by the next pricing run.
+        }
+
         return modelMapper.map(room, RoomDto.class);
     }
 
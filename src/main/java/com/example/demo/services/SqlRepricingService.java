@@ -0,0 +1,135 @@
+package com.example.demo.services;
+
+import com.example.demo.entity.Hotel;
+import com.example.demo.strategy.HolidayCalendar;
+import com.example.demo.strategy.PricingStrategyRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Collectors;
+
+//Set-based repricing: the pricing pipeline is turned into one SQL expression (PricingPipeline.toSql) and the inventory
+//of a hotel is repriced with a single UPDATE joined with the room's base price, instead of loading and saving every row.
+//The HotelMinPrice rows of the repriced days are then rebuilt with one INSERT ... ON CONFLICT aggregate.
+//Prices are rounded to paise the way the numeric(10, 2) column rounds the prices saved by the entity path, so both
+//paths write the same prices. Only available while every enabled strategy has a SQL form.
+//Runs in the caller's transaction.
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class SqlRepricingService {
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final PricingStrategyRegistry pricingStrategyRegistry;
+    private final HolidayCalendar holidayCalendar;
+
+    public boolean isAvailable() {
+        return pricingStrategyRegistry.getPipeline().toSql() != null;
+    }
+
+    //Reprices the hotel's inventory between startDate and endDate, only the dirty rows when dirtyOnly is set, and
+    //returns the number of repriced rows. Rows whose price does not change are not written, unless they are dirty.
+    public int repriceHotel(Hotel hotel, LocalDate startDate, LocalDate endDate, boolean dirtyOnly) {
+        String price = pipelineSql();
+        MapSqlParameterSource parameters = parameters(hotel, startDate, endDate);
+        String filter = dirtyOnly ? "i.price_dirty" : "(i.price_dirty OR i.price <> ROUND(%s, 2))".formatted(price);
+        return reprice(hotel, price, "", filter, dirtyOnly, parameters);
+    }
+
+    //Reprices the dirty rows of the given room types between startDate and endDate. Rows locked by a booking right now
+    //are skipped (SKIP LOCKED) instead of waited for; they stay dirty and a later run reprices them.
+    public int repriceDirtyRooms(Hotel hotel, Collection<Long> roomIds, LocalDate startDate, LocalDate endDate) {
+        String price = pipelineSql();
+        MapSqlParameterSource parameters = parameters(hotel, startDate, endDate).addValue("roomIds", roomIds);
+        String unlockedRows = """
+                , (SELECT id, date
+                   FROM inventory
+                   WHERE hotel_id = :hotelId
+                       AND room_id IN (:roomIds)
+                       AND date BETWEEN :startDate AND :endDate
+                       AND price_dirty
+                   FOR UPDATE SKIP LOCKED) l""";
+        return reprice(hotel, price, unlockedRows, "i.id = l.id AND i.date = l.date", true, parameters);
+    }
+
+    private int reprice(Hotel hotel, String price, String from, String filter, boolean dirtyOnly,
+                        MapSqlParameterSource parameters) {
+        List<LocalDate> repricedDates = jdbcTemplate.queryForList("""
+                UPDATE inventory i
+                SET price = ROUND(%1$s, 2),
+                    price_dirty = false
+                FROM room r%2$s
+                WHERE r.id = i.room_id
+                    AND i.hotel_id = :hotelId
+                    AND i.date BETWEEN :startDate AND :endDate
+                    AND %3$s
+                RETURNING i.date
+                """.formatted(price, from, filter), parameters, LocalDate.class);
+        if (repricedDates.isEmpty()) return 0;
+
+        // a full run rewrites every day, availability may have drifted even where the prices did not change.
+        Collection<LocalDate> days = dirtyOnly ? repricedDates.stream().distinct().toList() : null;
+        int refreshedDays = refreshHotelMinPrice(parameters, days);
+
+        log.debug("Repriced {} inventory rows and {} min price days of hotel {} in SQL", repricedDates.size(),
+                refreshedDays, hotel.getId());
+        return repricedDates.size();
+    }
+
+    private String pipelineSql() {
+        String price = pricingStrategyRegistry.getPipeline().toSql();
+        if (price == null) {
+            throw new IllegalStateException("The pricing pipeline has strategies without a SQL form");
+        }
+        return price;
+    }
+
+    private MapSqlParameterSource parameters(Hotel hotel, LocalDate startDate, LocalDate endDate) {
+        return new MapSqlParameterSource()
+                .addValue("hotelId", hotel.getId())
+                .addValue("startDate", startDate)
+                .addValue("endDate", endDate)
+                .addValue("today", LocalDate.now())
+                .addValue("holidays", toSqlArray(holidayCalendar.getHolidays(hotel.getCity(), startDate, endDate)));
+    }
+
+    //Same rules as HotelMinPriceService: the most free rooms of any room type, and the cheapest room type that still
+    //has free rooms, or the cheapest one when the hotel is sold out that day. days == null means the whole date range.
+    private int refreshHotelMinPrice(MapSqlParameterSource parameters, Collection<LocalDate> days) {
+        String dayFilter = "";
+        if (days != null) {
+            parameters.addValue("days", toSqlArray(days));
+            dayFilter = "AND i.date = ANY(CAST(:days AS date[]))";
+        }
+        return jdbcTemplate.update("""
+                INSERT INTO hotel_min_price (id, hotel_id, date, price, available_rooms, created_at, updated_at)
+                SELECT nextval('hotel_min_price_seq'), i.hotel_id, i.date,
+                       COALESCE(MIN(i.price) FILTER (WHERE f.free_rooms > 0), MIN(i.price)),
+                       MAX(f.free_rooms), now(), now()
+                FROM inventory i
+                CROSS JOIN LATERAL (
+                    SELECT CASE WHEN i.closed THEN 0
+                                ELSE GREATEST(0, i.total_count - i.booked_count - i.reserved_count) END AS free_rooms
+                ) f
+                WHERE i.hotel_id = :hotelId
+                    AND i.date BETWEEN :startDate AND :endDate
+                    %s
+                GROUP BY i.hotel_id, i.date
+                ON CONFLICT (hotel_id, date) DO UPDATE
+                SET price = EXCLUDED.price,
+                    available_rooms = EXCLUDED.available_rooms,
+                    updated_at = EXCLUDED.updated_at
+                """.formatted(dayFilter), parameters);
+    }
+
+    //postgres array literal, e.g. {2025-01-26,2025-08-15}
+    private static String toSqlArray(Collection<LocalDate> dates) {
+        return dates.stream().map(LocalDate::toString).collect(Collectors.joining(",", "{", "}"));
+    }
+}
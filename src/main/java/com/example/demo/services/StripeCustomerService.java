@@ -0,0 +1,142 @@
+package com.example.demo.services;
+
+import com.example.demo.entity.User;
+import com.example.demo.exceptions.PaymentProviderUnavailableException;
+import com.example.demo.repositories.UserRepository;
+import com.stripe.exception.ApiConnectionException;
+import com.stripe.exception.StripeException;
+import com.stripe.model.Customer;
+import com.stripe.net.RequestOptions;
+import com.stripe.param.CustomerCreateParams;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+//Every user gets one Stripe customer, created with their first checkout and stored on the user, so later checkouts
+//go straight to creating the session.
+//Concurrent first checkouts of the same user share one creation: on this instance they wait for the same call, and
+//across instances Stripe returns the same customer for the same idempotency key. Only the first id stored for a user
+//is kept (UPDATE ... WHERE stripe_customer_id IS NULL), everybody else uses the stored one.
+//The idempotency key is scoped to the deployment: user ids restart when a database is recreated, and environments
+//sharing a Stripe account (or a recreated one within Stripe's 24 h key window) would otherwise get another user's
+//customer. The scope is stripe.idempotency-namespace, or the database name and oid when it is not set, which also
+//changes when the database is recreated.
+//Like the checkout itself it calls Stripe, so it must not be called inside a transaction.
+//Meters: stripe.customer.create{outcome} (timer, the rate and latency of customer creation) and
+//stripe.customer.reused (counter, checkouts that found a stored customer).
+@Service
+@Slf4j
+public class StripeCustomerService {
+
+    private final UserRepository userRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final JdbcTemplate jdbcTemplate;
+    private final String configuredNamespace;
+    private volatile String idempotencyNamespace;
+
+    private final ConcurrentHashMap<Long, CompletableFuture<String>> creations = new ConcurrentHashMap<>();
+    private final MeterRegistry meterRegistry;
+    private final Counter reusedCustomers;
+
+    public StripeCustomerService(UserRepository userRepository, TransactionTemplate transactionTemplate,
+                                 JdbcTemplate jdbcTemplate, MeterRegistry meterRegistry,
+                                 @Value("${stripe.idempotency-namespace:}") String idempotencyNamespace) {
+        this.userRepository = userRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.jdbcTemplate = jdbcTemplate;
+        this.configuredNamespace = idempotencyNamespace.trim();
+        this.meterRegistry = meterRegistry;
+        this.reusedCustomers = Counter.builder("stripe.customer.reused").register(meterRegistry);
+    }
+
+    public String getOrCreateCustomerId(User user) {
+        // the user of the security context is loaded for every request, the lookup covers a customer stored since.
+        String customerId = user.getStripeCustomerId() != null
+                ? user.getStripeCustomerId()
+                : userRepository.findStripeCustomerId(user.getId()).orElse(null);
+        if (customerId != null) {
+            reusedCustomers.increment();
+            user.setStripeCustomerId(customerId);
+            return customerId;
+        }
+
+        CompletableFuture<String> creation = new CompletableFuture<>();
+        CompletableFuture<String> running = creations.putIfAbsent(user.getId(), creation);
+        if (running != null) {
+            return join(running);
+        }
+        try {
+            creation.complete(createAndStore(user));
+        } catch (RuntimeException e) {
+            creation.completeExceptionally(e);
+        } finally {
+            creations.remove(user.getId(), creation);
+        }
+        customerId = join(creation);
+        user.setStripeCustomerId(customerId);
+        return customerId;
+    }
+
+    private String createAndStore(User user) {
+        long start = System.nanoTime();
+        String outcome = "failed";
+        try {
+            CustomerCreateParams customerParams = CustomerCreateParams.builder()
+                    .setName(user.getName())
+                    .setEmail(user.getEmail())
+                    .putMetadata("userId", String.valueOf(user.getId()))
+                    .build();
+            RequestOptions requestOptions = RequestOptions.builder()
+                    .setIdempotencyKey(idempotencyNamespace() + "-customer-of-user-" + user.getId())
+                    .build();
+            Customer customer = Customer.create(customerParams, requestOptions);
+            outcome = "created";
+
+            Integer stored = transactionTemplate.execute(status ->
+                    userRepository.setStripeCustomerIdIfAbsent(user.getId(), customer.getId()));
+            if (stored != null && stored == 1) {
+                log.info("Created Stripe customer {} for user {}", customer.getId(), user.getId());
+                return customer.getId();
+            }
+            // another instance stored a customer first, that one is used from now on.
+            return userRepository.findStripeCustomerId(user.getId()).orElse(customer.getId());
+        } catch (ApiConnectionException e) {
+            throw new PaymentProviderUnavailableException("The payment provider could not be reached, please try again", e);
+        } catch (StripeException e) {
+            throw new RuntimeException(e);
+        } finally {
+            Timer.builder("stripe.customer.create").tag("outcome", outcome).register(meterRegistry)
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    //Resolved with the first customer creation, so starting the application does not need the database.
+    private String idempotencyNamespace() {
+        String namespace = idempotencyNamespace;
+        if (namespace == null) {
+            namespace = !configuredNamespace.isEmpty() ? configuredNamespace : jdbcTemplate.queryForObject(
+                    "SELECT datname || '-' || oid FROM pg_database WHERE datname = current_database()", String.class);
+            idempotencyNamespace = namespace;
+        }
+        return namespace;
+    }
+
+    private static String join(CompletableFuture<String> creation) {
+        try {
+            return creation.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) throw cause;
+            throw e;
+        }
+    }
+}
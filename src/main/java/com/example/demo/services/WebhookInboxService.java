@@ -0,0 +1,198 @@
+package com.example.demo.services;
+
+import com.example.demo.entity.WebhookEvent;
+import com.example.demo.entity.enums.WebhookEventStatus;
+import com.example.demo.repositories.WebhookEventRepository;
+import com.stripe.model.Event;
+import com.stripe.net.ApiResource;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.transaction.Transactional;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+//Stripe webhooks go through an inbox (the webhook_event table) instead of being processed while Stripe waits.
+//The controller only stores the verified event under its Stripe id and acknowledges it; a redelivered event finds its
+//row and is ignored. Every webhook.inbox.poll-ms webhook.inbox.workers workers drain the inbox: each locks a batch of
+//up to webhook.inbox.batch-size due events (SKIP LOCKED, so workers never wait for each other) and confirms all of
+//their bookings in one transaction through BookingService.capturePayments.
+//When a batch fails, its events are retried one by one, each in a transaction of its own, so one bad event does not
+//hold back the others. A failing event is retried with exponential backoff (webhook.inbox.retry-backoff-ms doubling)
+//and set to FAILED after webhook.inbox.max-attempts attempts. Processed events are kept for
+//webhook.inbox.retention-days, longer than Stripe keeps redelivering them.
+//Meters: webhook.inbox.lag (seconds the oldest pending event has been waiting) and webhook.inbox.pending (gauges),
+//webhook.inbox.events{outcome} (counter), webhook.inbox.batch.duration (timer).
+@Service
+@Slf4j
+public class WebhookInboxService {
+
+    private final WebhookEventRepository webhookEventRepository;
+    private final BookingService bookingService;
+    private final TransactionTemplate transactionTemplate;
+
+    private final int workers;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final long retryBackoffMillis;
+    private final int retentionDays;
+
+    private final AtomicLong lagSeconds = new AtomicLong();
+    private final AtomicLong pending = new AtomicLong();
+    private final Counter processedEvents;
+    private final Counter retriedEvents;
+    private final Counter failedEvents;
+    private final Timer batchTimer;
+
+    public WebhookInboxService(WebhookEventRepository webhookEventRepository,
+                               BookingService bookingService,
+                               TransactionTemplate transactionTemplate,
+                               MeterRegistry meterRegistry,
+                               @Value("${webhook.inbox.workers:4}") int workers,
+                               @Value("${webhook.inbox.batch-size:50}") int batchSize,
+                               @Value("${webhook.inbox.max-attempts:10}") int maxAttempts,
+                               @Value("${webhook.inbox.retry-backoff-ms:5000}") long retryBackoffMillis,
+                               @Value("${webhook.inbox.retention-days:30}") int retentionDays) {
+        this.webhookEventRepository = webhookEventRepository;
+        this.bookingService = bookingService;
+        this.transactionTemplate = transactionTemplate;
+        this.workers = workers;
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+        this.retryBackoffMillis = retryBackoffMillis;
+        this.retentionDays = retentionDays;
+
+        Gauge.builder("webhook.inbox.lag", lagSeconds, AtomicLong::get).baseUnit("seconds").register(meterRegistry);
+        Gauge.builder("webhook.inbox.pending", pending, AtomicLong::get).register(meterRegistry);
+        this.processedEvents = Counter.builder("webhook.inbox.events").tag("outcome", "processed").register(meterRegistry);
+        this.retriedEvents = Counter.builder("webhook.inbox.events").tag("outcome", "retried").register(meterRegistry);
+        this.failedEvents = Counter.builder("webhook.inbox.events").tag("outcome", "failed").register(meterRegistry);
+        this.batchTimer = Timer.builder("webhook.inbox.batch.duration").register(meterRegistry);
+    }
+
+    //Returns false for an event that is already in the inbox.
+    @Transactional
+    public boolean receive(Event event, String payload) {
+        boolean stored = webhookEventRepository.insertIfAbsent(event.getId(), event.getType(), payload,
+                LocalDateTime.now()) == 1;
+        if (!stored) {
+            log.info("Webhook event {} was already received", event.getId());
+        }
+        return stored;
+    }
+
+    @Scheduled(fixedDelayString = "${webhook.inbox.poll-ms:500}")
+    public void drainInbox() {
+        // closing the executor waits until every worker found the inbox empty.
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < workers; i++) {
+                executor.execute(this::drain);
+            }
+        }
+        updateLag();
+    }
+
+    @Scheduled(cron = "${webhook.inbox.cleanup-cron:0 45 2 * * *}")
+    public void deleteProcessedEvents() {
+        Integer deleted = transactionTemplate.execute(status -> webhookEventRepository.deleteProcessedBefore(
+                WebhookEventStatus.PROCESSED, LocalDateTime.now().minusDays(retentionDays)));
+        log.info("Deleted {} processed webhook events older than {} days", deleted, retentionDays);
+    }
+
+    private void drain() {
+        try {
+            while (processBatch(batchSize) == batchSize) {
+                // a full batch, there may be more.
+            }
+        } catch (Exception e) {
+            log.error("Webhook inbox worker failed", e);
+        }
+    }
+
+    //Claims up to size due events and processes them in one transaction. Returns the number of events claimed, so
+    //the worker knows whether to go on.
+    private int processBatch(int size) {
+        List<String> claimedIds = new ArrayList<>();
+        long start = System.nanoTime();
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                List<WebhookEvent> events = webhookEventRepository.findAndLockDueEvents(WebhookEventStatus.PENDING,
+                        LocalDateTime.now(), Limit.of(size));
+                events.forEach(event -> claimedIds.add(event.getId()));
+                if (events.isEmpty()) return;
+
+                bookingService.capturePayments(events.stream().map(WebhookInboxService::toStripeEvent).toList());
+                LocalDateTime now = LocalDateTime.now();
+                events.forEach(event -> {
+                    event.setStatus(WebhookEventStatus.PROCESSED);
+                    event.setAttempts(event.getAttempts() + 1);
+                    event.setProcessedAt(now);
+                    event.setLastError(null);
+                });
+            });
+            processedEvents.increment(claimedIds.size());
+            return claimedIds.size();
+        } catch (RuntimeException e) {
+            if (claimedIds.isEmpty()) throw e;
+            if (claimedIds.size() == 1) {
+                recordFailure(claimedIds.get(0), e);
+                return 1;
+            }
+            // the batch rolled back, its events are claimed again one at a time to find the one that fails.
+            log.warn("Webhook batch of {} events failed, retrying them one by one", claimedIds.size(), e);
+            for (int i = 0; i < claimedIds.size(); i++) {
+                if (processBatch(1) == 0) break;
+            }
+            return claimedIds.size();
+        } finally {
+            batchTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private void recordFailure(String eventId, RuntimeException e) {
+        transactionTemplate.executeWithoutResult(status -> webhookEventRepository.findById(eventId)
+                .filter(event -> event.getStatus() == WebhookEventStatus.PENDING)
+                .ifPresent(event -> {
+                    int attempts = event.getAttempts() + 1;
+                    event.setAttempts(attempts);
+                    String message = String.valueOf(e.getMessage());
+                    event.setLastError(message.length() > 1000 ? message.substring(0, 1000) : message);
+                    if (attempts >= maxAttempts) {
+                        event.setStatus(WebhookEventStatus.FAILED);
+                        failedEvents.increment();
+                        log.error("Giving up on webhook event {} after {} attempts", eventId, attempts, e);
+                        return;
+                    }
+                    long backoffMillis = retryBackoffMillis << Math.min(attempts - 1, 16);
+                    event.setNextAttemptAt(LocalDateTime.now().plus(Duration.ofMillis(backoffMillis)));
+                    retriedEvents.increment();
+                    log.warn("Webhook event {} failed (attempt {}), retrying in {} ms", eventId, attempts,
+                            backoffMillis, e);
+                }));
+    }
+
+    private void updateLag() {
+        LocalDateTime oldest = webhookEventRepository.findOldestReceivedAt(WebhookEventStatus.PENDING);
+        lagSeconds.set(oldest == null ? 0 : Math.max(0, Duration.between(oldest, LocalDateTime.now()).toSeconds()));
+        pending.set(webhookEventRepository.countByStatus(WebhookEventStatus.PENDING));
+    }
+
+    //the payload was verified before it was stored, so it is only parsed here.
+    private static Event toStripeEvent(WebhookEvent event) {
+        return ApiResource.GSON.fromJson(event.getPayload(), Event.class);
+    }
+}
@@ -1,14 +1,32 @@
 package com.example.demo.strategy;
 
 import com.example.demo.entity.Inventory;
+import org.springframework.stereotype.Component;
 
 import java.math.BigDecimal;
 
+@Component
 public class BasePricingStrategy implements PricingStrategy{
+
     @Override
-    public BigDecimal calculatePrice(Inventory inventory) { //notice that we do not need any other pricing startegy
-         // to be multiplied with this base pricing strategy. That's why it is called the base pricing strategy.
+    public String getName() {
+        return "base";
+    }
+
+    @Override
+    public BigDecimal calculatePrice(Inventory inventory, BigDecimal price) { //notice that we do not need any other
+         // pricing strategy before this one. That's why it is called the base pricing strategy, it is always the first one.
         return inventory.getRoom().getBasePrice(); // to get the base price
          //you will have to see the room instance's price in the inventory.
     }
+
+    @Override
+    public long calculatePrice(Inventory inventory, long price) {
+        return FixedPointPrice.of(inventory.getRoom().getBasePrice());
+    }
+
+    @Override
+    public String toSql(String price) {
+        return "r.base_price";
+    }
 }
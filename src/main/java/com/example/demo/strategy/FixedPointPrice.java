@@ -0,0 +1,89 @@
+package com.example.demo.strategy;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+
+//Arithmetic of the FIXED_POINT pricing engine. A price is a plain long counting billionths of a rupee (scale 9),
+//so a pricing run does not allocate an object per step.
+//Scale 9 is enough to hold every intermediate price exactly: the base price and the surge factor have two decimals
+//and the occupancy, urgency and holiday factors (1.2, 1.15, 1.25) at most two, so dividing by the factor's power of
+//ten never leaves a remainder. If it ever does (a custom strategy with finer factors), or a long would overflow, the
+//result is NOT_REPRESENTABLE and the caller prices the row with BigDecimal instead. The checks are plain comparisons
+//rather than exceptions, they run for every step of every row.
+//Rounding happens once, at the edge: toMinorUnits() rounds HALF_UP to paise like the scale 2 price columns do.
+public final class FixedPointPrice {
+
+    public static final int SCALE = 9;
+
+    //a price the engine cannot hold exactly; every operation returns it again once an input is NOT_REPRESENTABLE.
+    public static final long NOT_REPRESENTABLE = Long.MIN_VALUE;
+
+    private static final long[] POWERS_OF_TEN = new long[19];
+
+    static {
+        POWERS_OF_TEN[0] = 1;
+        for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+        }
+    }
+
+    private FixedPointPrice() {
+    }
+
+    public static long of(BigDecimal value) {
+        if (value.scale() > SCALE) {
+            value = value.stripTrailingZeros();
+            if (value.scale() > SCALE) return NOT_REPRESENTABLE; // would have to round.
+        }
+        BigInteger unscaled = value.setScale(SCALE).unscaledValue();
+        return unscaled.bitLength() < Long.SIZE ? unscaled.longValue() : NOT_REPRESENTABLE;
+    }
+
+    public static long multiply(long price, long factorUnscaled, int factorScale) {
+        if (price == NOT_REPRESENTABLE || factorScale < 0 || factorScale >= POWERS_OF_TEN.length) {
+            return NOT_REPRESENTABLE;
+        }
+        long product = price * factorUnscaled;
+        // the high 64 bits of the full product are only the sign extension of product when it did not overflow.
+        if (Math.multiplyHigh(price, factorUnscaled) != (product >> 63)) return NOT_REPRESENTABLE;
+        long divisor = POWERS_OF_TEN[factorScale];
+        if (product % divisor != 0) return NOT_REPRESENTABLE; // needs more than SCALE decimals.
+        return product / divisor;
+    }
+
+    public static long multiply(long price, BigDecimal factor) {
+        if (factor.scale() < 0) {
+            factor = factor.setScale(0);
+        }
+        BigInteger unscaled = factor.unscaledValue();
+        if (unscaled.bitLength() >= Long.SIZE) return NOT_REPRESENTABLE;
+        return multiply(price, unscaled.longValue(), factor.scale());
+    }
+
+    //NOT_REPRESENTABLE when the sum overflows.
+    public static long add(long total, long price) {
+        if (total == NOT_REPRESENTABLE || price == NOT_REPRESENTABLE) return NOT_REPRESENTABLE;
+        long sum = total + price;
+        // overflow when both operands have the same sign and the sum has the other one.
+        return ((total ^ sum) & (price ^ sum)) < 0 ? NOT_REPRESENTABLE : sum;
+    }
+
+    //the price in paise, rounded HALF_UP.
+    public static long toMinorUnits(long price) {
+        long divisor = POWERS_OF_TEN[SCALE - 2];
+        long quotient = price / divisor;
+        long remainder = Math.abs(price % divisor);
+        if (remainder >= divisor - remainder) { // remainder >= divisor / 2, computed without rounding the half away.
+            quotient += Long.signum(price);
+        }
+        return quotient;
+    }
+
+    public static BigDecimal toPrice(long price) {
+        return BigDecimal.valueOf(toMinorUnits(price), 2);
+    }
+
+    public static BigDecimal toBigDecimal(long price) {
+        return BigDecimal.valueOf(price, SCALE);
+    }
+}
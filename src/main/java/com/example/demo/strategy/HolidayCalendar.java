@@ -0,0 +1,21 @@
+package com.example.demo.strategy;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+//Answers whether a date is a public holiday in a city. Called once per inventory row while pricing,
+//so implementations must not do any I/O.
+@FunctionalInterface
+public interface HolidayCalendar {
+
+    boolean isHoliday(String city, LocalDate date);
+
+    default List<LocalDate> getHolidays(String city, LocalDate startDate, LocalDate endDate) {
+        List<LocalDate> holidays = new ArrayList<>();
+        for (LocalDate date = startDate; !date.isAfter(endDate); date = date.plusDays(1)) {
+            if (isHoliday(city, date)) holidays.add(date);
+        }
+        return holidays;
+    }
+}
@@ -2,21 +2,43 @@ package com.example.demo.strategy;
 
 import com.example.demo.entity.Inventory;
 import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
 
 import java.math.BigDecimal;
 
+@Component
 @RequiredArgsConstructor
 public class HolidayPricingStrategy implements PricingStrategy{
 
-    private final PricingStrategy wrapped;
+    private static final BigDecimal HOLIDAY_MULTIPLIER = BigDecimal.valueOf(1.25);
+
+    private final HolidayCalendar holidayCalendar;
+
+    @Override
+    public String getName() {
+        return "holiday";
+    }
 
     @Override
-    public BigDecimal calculatePrice(Inventory inventory) {
-        BigDecimal price = wrapped.calculatePrice(inventory);
-        boolean isTodayHoliday = true; // call an API or check with local data
-        if (isTodayHoliday) {
-            price = price.multiply(BigDecimal.valueOf(1.25));
+    public BigDecimal calculatePrice(Inventory inventory, BigDecimal price) {
+        if (isHoliday(inventory)) {
+            price = price.multiply(HOLIDAY_MULTIPLIER);
         }
         return price;
     }
+
+    @Override
+    public long calculatePrice(Inventory inventory, long price) {
+        return isHoliday(inventory) ? FixedPointPrice.multiply(price, 125, 2) : price;
+    }
+
+    @Override
+    public String toSql(String price) {
+        return "(" + price + ") * CASE WHEN i.date = ANY(CAST(:holidays AS date[])) THEN 1.25 ELSE 1 END";
+    }
+
+    //the day being priced, not the day the price is calculated on.
+    private boolean isHoliday(Inventory inventory) {
+        return holidayCalendar.isHoliday(inventory.getCity(), inventory.getDate());
+    }
 }
@@ -1,22 +1,41 @@
 package com.example.demo.strategy;
 
 import com.example.demo.entity.Inventory;
-import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
 
 import java.math.BigDecimal;
 
-@RequiredArgsConstructor
+@Component
 public class OccupancyPricingStrategy implements PricingStrategy{
 
-    private final PricingStrategy wrapped;
+    private static final BigDecimal OCCUPANCY_MULTIPLIER = BigDecimal.valueOf(1.2);
 
     @Override
-    public BigDecimal calculatePrice(Inventory inventory) {
-        BigDecimal price = wrapped.calculatePrice(inventory);
-        double occupancyRate = (double) inventory.getBookedCount() / inventory.getTotalCount();
-        if(occupancyRate > 0.8) { //if occupancy is more than 80 percent.
-            price = price.multiply(BigDecimal.valueOf(1.2));
+    public String getName() {
+        return "occupancy";
+    }
+
+    @Override
+    public BigDecimal calculatePrice(Inventory inventory, BigDecimal price) {
+        if(isHighOccupancy(inventory)) {
+            price = price.multiply(OCCUPANCY_MULTIPLIER);
         }
         return price;
     }
+
+    @Override
+    public long calculatePrice(Inventory inventory, long price) {
+        return isHighOccupancy(inventory) ? FixedPointPrice.multiply(price, 12, 1) : price;
+    }
+
+    //booked / total > 0.8 compared in integers.
+    @Override
+    public String toSql(String price) {
+        return "(" + price + ") * CASE WHEN i.booked_count * 5 > i.total_count * 4 THEN 1.2 ELSE 1 END";
+    }
+
+    private boolean isHighOccupancy(Inventory inventory) {
+        double occupancyRate = (double) inventory.getBookedCount() / inventory.getTotalCount();
+        return occupancyRate > 0.8; //if occupancy is more than 80 percent.
+    }
 }
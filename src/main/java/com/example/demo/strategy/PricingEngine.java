@@ -0,0 +1,6 @@
+package com.example.demo.strategy;
+
+public enum PricingEngine {
+    BIG_DECIMAL, // the strategies multiply BigDecimals, the columns round the result.
+    FIXED_POINT // the strategies multiply FixedPointPrices in longs, rounded to paise when converted back.
+}
@@ -0,0 +1,98 @@
+package com.example.demo.strategy;
+
+import com.example.demo.entity.Inventory;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+//Immutable, ordered list of pricing strategies. Built once by PricingStrategyRegistry and shared by every thread,
+//pricing an inventory row only allocates the BigDecimals the strategies return.
+public final class PricingPipeline {
+
+    private final PricingStrategy[] strategies;
+
+    PricingPipeline(List<PricingStrategy> strategies) {
+        this.strategies = strategies.toArray(new PricingStrategy[0]);
+    }
+
+    public BigDecimal price(Inventory inventory) {
+        BigDecimal price = BigDecimal.ZERO;
+        for (PricingStrategy strategy : strategies) {
+            price = strategy.calculatePrice(inventory, price);
+        }
+        return price;
+    }
+
+    //prices of the rows, in the same order.
+    public List<BigDecimal> price(List<Inventory> inventoryList) {
+        List<BigDecimal> prices = new ArrayList<>(inventoryList.size());
+        for (Inventory inventory : inventoryList) {
+            prices.add(price(inventory));
+        }
+        return prices;
+    }
+
+    public BigDecimal totalPrice(List<Inventory> inventoryList) {
+        BigDecimal total = BigDecimal.ZERO;
+        for (Inventory inventory : inventoryList) {
+            total = total.add(price(inventory));
+        }
+        return total;
+    }
+
+    //Fixed point engine: the price rounded HALF_UP to paise. Rows whose arithmetic does not fit in a long are
+    //priced with BigDecimal and rounded the same way, so both engines always agree.
+    public BigDecimal priceInFixedPoint(Inventory inventory) {
+        long price = fixedPointPrice(inventory);
+        if (price == FixedPointPrice.NOT_REPRESENTABLE) {
+            return price(inventory).setScale(2, RoundingMode.HALF_UP);
+        }
+        return FixedPointPrice.toPrice(price);
+    }
+
+    public List<BigDecimal> priceInFixedPoint(List<Inventory> inventoryList) {
+        List<BigDecimal> prices = new ArrayList<>(inventoryList.size());
+        for (Inventory inventory : inventoryList) {
+            prices.add(priceInFixedPoint(inventory));
+        }
+        return prices;
+    }
+
+    //Exact sum of the unrounded day prices, like totalPrice, so the booking amount is rounded once as before.
+    public BigDecimal totalPriceInFixedPoint(List<Inventory> inventoryList) {
+        long total = 0;
+        for (Inventory inventory : inventoryList) {
+            total = FixedPointPrice.add(total, fixedPointPrice(inventory));
+            if (total == FixedPointPrice.NOT_REPRESENTABLE) {
+                return totalPrice(inventoryList);
+            }
+        }
+        return FixedPointPrice.toBigDecimal(total);
+    }
+
+    private long fixedPointPrice(Inventory inventory) {
+        long price = 0;
+        for (PricingStrategy strategy : strategies) {
+            price = strategy.calculatePrice(inventory, price);
+            if (price == FixedPointPrice.NOT_REPRESENTABLE) break;
+        }
+        return price;
+    }
+
+    //The whole pipeline as one SQL expression (see PricingStrategy.toSql), null when a strategy can only run in Java.
+    public String toSql() {
+        String price = "0";
+        for (PricingStrategy strategy : strategies) {
+            price = strategy.toSql(price);
+            if (price == null) return null;
+        }
+        return price;
+    }
+
+    public List<String> getStrategyNames() {
+        return Arrays.stream(strategies).map(PricingStrategy::getName).toList();
+    }
+}
@@ -1,37 +1,43 @@
 package com.example.demo.strategy;
 
 import com.example.demo.entity.Inventory;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
 import java.util.List;
 
 @Service
+@RequiredArgsConstructor
 public class PricingService {
+
+    private final PricingStrategyRegistry pricingStrategyRegistry;
+
+    @Value("${pricing.engine:BIG_DECIMAL}")
+    private PricingEngine pricingEngine;
+
     //takes in a single inventory, passes it through all the strategies and gets the total price of that single inventory.
     //We get the price of the single room present in that inventory row.
     public BigDecimal calculateDynamicPricing(Inventory inventory) {
-        PricingStrategy pricingStrategy = new BasePricingStrategy();
-
-        // apply the additional strategies
-        pricingStrategy = new SurgePricingStrategy(pricingStrategy);
-        pricingStrategy = new OccupancyPricingStrategy(pricingStrategy);
-        pricingStrategy = new UrgencyPricingStrategy(pricingStrategy);
-        pricingStrategy = new HolidayPricingStrategy(pricingStrategy);
-
-        return pricingStrategy.calculatePrice(inventory);
+        //we are going through all the strategies and increasing the price according to the valid strategies.
+        //the pipeline is built once by the registry instead of wrapping decorators for every row.
+        PricingPipeline pipeline = pricingStrategyRegistry.getPipeline();
+        return pricingEngine == PricingEngine.FIXED_POINT ? pipeline.priceInFixedPoint(inventory) : pipeline.price(inventory);
+    }
 
-        //we are going through all the strategies and increasing the price according to the valid startegies.
-        // this is the decorator design pattern.
+    //prices of every inventory row, in the same order, in one pass over the pipeline.
+    public List<BigDecimal> calculateDynamicPricing(List<Inventory> inventoryList) {
+        PricingPipeline pipeline = pricingStrategyRegistry.getPipeline();
+        return pricingEngine == PricingEngine.FIXED_POINT ? pipeline.priceInFixedPoint(inventoryList) : pipeline.price(inventoryList);
     }
 
     public BigDecimal calculateTotalPrice(List<Inventory> inventoryList) {
         //think of multiple inventory rows as multiple inventory days.
-        return inventoryList.stream()
-                .map(this::calculateDynamicPricing)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        PricingPipeline pipeline = pricingStrategyRegistry.getPipeline();
+        return pricingEngine == PricingEngine.FIXED_POINT ? pipeline.totalPriceInFixedPoint(inventoryList) : pipeline.totalPrice(inventoryList);
     }
 }
 
 // WHy dd we not put all the code in a single file. It was very doable?
-//Separation of Concerns, can add more strategies without modifying the exisitng files.
\ No newline at end of file
+//Separation of Concerns, can add more strategies without modifying the exisitng files.
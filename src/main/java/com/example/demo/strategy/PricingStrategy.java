@@ -4,8 +4,28 @@ import com.example.demo.entity.Inventory;
 
 import java.math.BigDecimal;
 
+//One step of the pricing pipeline. Strategies are stateless beans: each one gets the price computed by the
+//strategies before it and returns the adjusted price. The order and the enabled strategies come from
+//PricingStrategyRegistry.
 public interface PricingStrategy {
 
-    BigDecimal calculatePrice(Inventory inventory);
+    String getName(); // used in pricing.strategy-order and pricing.strategies.<name>.enabled
+
+    BigDecimal calculatePrice(Inventory inventory, BigDecimal price);
+
+    //Same step for the FIXED_POINT engine, the price is a long of scale FixedPointPrice.SCALE.
+    //Strategies that do not override it are priced through BigDecimal.
+    default long calculatePrice(Inventory inventory, long price) {
+        if (price == FixedPointPrice.NOT_REPRESENTABLE) return price;
+        return FixedPointPrice.of(calculatePrice(inventory, FixedPointPrice.toBigDecimal(price)));
+    }
+
+    //Same step as a SQL expression, for the set-based repricing of SqlRepricingService: gets the SQL expression of the
+    //price so far and returns the adjusted one. It can use the inventory row (alias i), its room (alias r) and the
+    //parameters :today and :holidays (date[] of the holidays in the hotel's city).
+    //Returns null when the strategy can only run in Java, which keeps the whole pipeline on the entity path.
+    default String toSql(String price) {
+        return null;
+    }
 
 }
@@ -0,0 +1,76 @@
+package com.example.demo.strategy;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+
+//Collects every PricingStrategy bean and builds the pricing pipeline once, at startup.
+//pricing.strategy-order lists the strategies by name in the order they are applied, strategies missing from the list
+//are applied after the listed ones. pricing.strategies.<name>.enabled=false leaves a strategy out.
+//Adding a strategy means adding a bean, PricingService does not change.
+@Component
+@Slf4j
+public class PricingStrategyRegistry {
+
+    private final PricingPipeline pipeline;
+    private final Map<String, PricingStrategy> strategiesByName;
+
+    public PricingStrategyRegistry(List<PricingStrategy> strategies,
+                                   Environment environment,
+                                   @Value("${pricing.strategy-order:base,surge,occupancy,urgency,holiday}") List<String> strategyOrder) {
+        Map<String, PricingStrategy> strategiesByName = new LinkedHashMap<>();
+        for (PricingStrategy strategy : strategies) {
+            if (strategiesByName.put(strategy.getName(), strategy) != null) {
+                throw new IllegalStateException("Two pricing strategies are named " + strategy.getName());
+            }
+        }
+        this.strategiesByName = Map.copyOf(strategiesByName);
+
+        List<PricingStrategy> ordered = new ArrayList<>();
+        for (String name : strategyOrder) {
+            PricingStrategy strategy = strategiesByName.remove(name.trim());
+            if (strategy == null) {
+                throw new IllegalStateException("Unknown pricing strategy in pricing.strategy-order: " + name);
+            }
+            ordered.add(strategy);
+        }
+        ordered.addAll(strategiesByName.values());
+
+        List<PricingStrategy> enabled = ordered.stream()
+                .filter(strategy -> environment.getProperty("pricing.strategies." + strategy.getName() + ".enabled",
+                        Boolean.class, true))
+                .toList();
+
+        // every other strategy adjusts the price of the one before it, the base price has to come first.
+        if (enabled.isEmpty() || !(enabled.get(0) instanceof BasePricingStrategy)) {
+            throw new IllegalStateException("The base pricing strategy has to be enabled and come first");
+        }
+
+        this.pipeline = new PricingPipeline(enabled);
+        log.info("Pricing pipeline: {}", pipeline.getStrategyNames());
+    }
+
+    public PricingPipeline getPipeline() {
+        return pipeline;
+    }
+
+    //A pipeline of exactly the named strategies in the given order, e.g. to try out a configuration.
+    //Does not change the pipeline used for pricing.
+    public PricingPipeline buildPipeline(List<String> strategyNames) {
+        List<PricingStrategy> strategies = new ArrayList<>();
+        for (String name : strategyNames) {
+            PricingStrategy strategy = strategiesByName.get(name.trim());
+            if (strategy == null) {
+                throw new IllegalArgumentException("Unknown pricing strategy: " + name);
+            }
+            strategies.add(strategy);
+        }
+        if (strategies.isEmpty() || !(strategies.get(0) instanceof BasePricingStrategy)) {
+            throw new IllegalArgumentException("The base pricing strategy has to come first");
+        }
+        return new PricingPipeline(strategies);
+    }
+}
@@ -1,18 +1,30 @@
 package com.example.demo.strategy;
 
 import com.example.demo.entity.Inventory;
-import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
 
 import java.math.BigDecimal;
 
-@RequiredArgsConstructor
+@Component
 public class SurgePricingStrategy implements PricingStrategy{
 
-    private final PricingStrategy wrapped; //We have multiple pricing strategies.
+    @Override
+    public String getName() {
+        return "surge";
+    }
 
     @Override
-    public BigDecimal calculatePrice(Inventory inventory) {
-        BigDecimal price = wrapped.calculatePrice(inventory);
+    public BigDecimal calculatePrice(Inventory inventory, BigDecimal price) {
         return price.multiply(inventory.getSurgeFactor());
     }
+
+    @Override
+    public long calculatePrice(Inventory inventory, long price) {
+        return FixedPointPrice.multiply(price, inventory.getSurgeFactor());
+    }
+
+    @Override
+    public String toSql(String price) {
+        return "(" + price + ") * i.surge_factor";
+    }
 }
@@ -1,24 +1,63 @@
 package com.example.demo.strategy;
 
 import com.example.demo.entity.Inventory;
-import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.time.ZoneId;
 
-@RequiredArgsConstructor
+@Component
 public class UrgencyPricingStrategy implements PricingStrategy{
 
-    private final PricingStrategy wrapped;
+    private static final BigDecimal URGENCY_MULTIPLIER = BigDecimal.valueOf(1.15);
+
+    public static final int URGENCY_WINDOW_DAYS = 7; // today and the next 6 days.
+
+    //LocalDate.now() costs a clock read and a time zone lookup, far more than the pricing itself, so the current day
+    //is only looked up again once the cached one is over.
+    private volatile Today today = Today.now();
 
     @Override
-    public BigDecimal calculatePrice(Inventory inventory) {
-        BigDecimal price = wrapped.calculatePrice(inventory);
+    public String getName() {
+        return "urgency";
+    }
 
-        LocalDate today = LocalDate.now();
-        if(!inventory.getDate().isBefore(today) && inventory.getDate().isBefore(today.plusDays(7))) {
-            price = price.multiply(BigDecimal.valueOf(1.15)); // if the check in and check out
+    @Override
+    public BigDecimal calculatePrice(Inventory inventory, BigDecimal price) {
+        if(isWithinAWeek(inventory)) {
+            price = price.multiply(URGENCY_MULTIPLIER); // if the check in and check out
         }
         return price;
     }
+
+    @Override
+    public long calculatePrice(Inventory inventory, long price) {
+        return isWithinAWeek(inventory) ? FixedPointPrice.multiply(price, 115, 2) : price;
+    }
+
+    @Override
+    public String toSql(String price) {
+        return "(" + price + ") * CASE WHEN i.date >= CAST(:today AS date) AND i.date < CAST(:today AS date) + "
+                + URGENCY_WINDOW_DAYS + " THEN 1.15 ELSE 1 END";
+    }
+
+    private boolean isWithinAWeek(Inventory inventory) {
+        Today current = today;
+        if (System.currentTimeMillis() >= current.endMillis()) {
+            current = Today.now();
+            today = current;
+        }
+        return !inventory.getDate().isBefore(current.date()) && inventory.getDate().isBefore(current.weekLater());
+    }
+
+    private record Today(LocalDate date, LocalDate weekLater, long endMillis) {
+
+        static Today now() {
+            ZoneId zone = ZoneId.systemDefault();
+            LocalDate date = LocalDate.now(zone);
+            long endMillis = date.plusDays(1).atStartOfDay(zone).toInstant().toEpochMilli();
+            return new Today(date, date.plusDays(URGENCY_WINDOW_DAYS), endMillis);
+        }
+    }
 }
@@ -0,0 +1,51 @@
+package com.example.demo.util;
+
+import com.example.demo.exceptions.BadRequestException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+//Continuation tokens for keyset pagination. The token is opaque for the clients, internally it is
+//the sort key of the last row of the previous page, e.g. "price|hotelId" or "createdAt|bookingId".
+public class CursorUtils {
+
+    private static final String SEPARATOR = "|";
+
+    public static String encode(Object... parts) {
+        StringBuilder cursor = new StringBuilder();
+        for (Object part : parts) {
+            if (!cursor.isEmpty()) cursor.append(SEPARATOR);
+            cursor.append(part);
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(cursor.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    //Returns the parts of the cursor parsed into the given types (Long, Double or LocalDateTime).
+    //A cursor the client made up or changed fails here with a BadRequestException.
+    public static Object[] decode(String cursor, Class<?>... partTypes) {
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = decoded.split("\\|", -1);
+            if (parts.length != partTypes.length) {
+                throw new BadRequestException("Invalid cursor: " + cursor);
+            }
+            Object[] values = new Object[parts.length];
+            for (int i = 0; i < parts.length; i++) {
+                values[i] = parse(parts[i], partTypes[i]);
+            }
+            return values;
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            // invalid Base64 and numbers fail with IllegalArgumentExceptions.
+            throw new BadRequestException("Invalid cursor: " + cursor);
+        }
+    }
+
+    private static Object parse(String part, Class<?> type) {
+        if (type == Long.class) return Long.parseLong(part);
+        if (type == Double.class) return Double.parseDouble(part);
+        if (type == LocalDateTime.class) return LocalDateTime.parse(part);
+        throw new IllegalStateException("Unsupported cursor part type: " + type);
+    }
+}
@@ -0,0 +1,124 @@
+package com.example.demo.benchmark;
+
+import com.example.demo.dto.BookingRequest;
+import com.example.demo.entity.Room;
+import com.example.demo.entity.enums.ReservationMode;
+import com.example.demo.exceptions.ReservationConflictException;
+import com.example.demo.services.BookingService;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+//Runs initialiseBooking from many threads for every reservation mode at several contention levels:
+//the number of threads, and the number of room types the bookings are spread over (1 = everybody wants the same room).
+//Prints throughput, sold out rejections and optimistic conflicts that ran out of retries, and checks that
+//the reserved counts match the bookings that were created.
+//Needs a running database, run it with: mvn test -Pbenchmark
+@SpringBootTest
+@Tag("benchmark")
+class BookingContentionBenchmarkTest extends InventoryBenchmarkSupport {
+
+    private static final int ROOM_TYPES = 8;
+    private static final int ROOMS_PER_TYPE = 100;
+    private static final int ATTEMPTS = 600;
+    private static final int STAY_DAYS = 3;
+
+    @Autowired
+    private BookingService bookingService;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    static Stream<Arguments> contentionLevels() {
+        List<Arguments> arguments = new ArrayList<>();
+        for (ReservationMode mode : ReservationMode.values()) {
+            for (int threads : new int[]{1, 8, 32}) {
+                for (int roomTypes : new int[]{1, ROOM_TYPES}) {
+                    arguments.add(Arguments.of(mode, threads, roomTypes));
+                }
+            }
+        }
+        return arguments.stream();
+    }
+
+    @ParameterizedTest(name = "{0} with {1} threads on {2} room types")
+    @MethodSource("contentionLevels")
+    void initialiseBookingsConcurrently(ReservationMode mode, int threads, int roomTypes) throws Exception {
+        createHotel(ROOM_TYPES, ROOMS_PER_TYPE);
+        hotel.setReservationMode(mode);
+        hotel = hotelRepository.save(hotel);
+        LocalDate startDate = LocalDate.now().plusDays(1);
+        LocalDate endDate = startDate.plusDays(STAY_DAYS - 1);
+        for (Room room : rooms) {
+            inventoryRepository.bulkInsertInventory(hotel.getId(), room.getId(), hotel.getCity(), ROOMS_PER_TYPE,
+                    room.getBasePrice(), LocalDate.now(), endDate);
+        }
+
+        AtomicInteger booked = new AtomicInteger();
+        AtomicInteger soldOut = new AtomicInteger();
+        AtomicInteger conflicts = new AtomicInteger();
+
+        long start = System.nanoTime();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<?>> attempts = new ArrayList<>(ATTEMPTS);
+        for (int i = 0; i < ATTEMPTS; i++) {
+            attempts.add(executor.submit(() -> {
+                SecurityContextHolder.getContext().setAuthentication(
+                        new UsernamePasswordAuthenticationToken(owner, null, owner.getAuthorities()));
+                try {
+                    BookingRequest bookingRequest = new BookingRequest();
+                    bookingRequest.setHotelId(hotel.getId());
+                    bookingRequest.setRoomId(rooms.get(ThreadLocalRandom.current().nextInt(roomTypes)).getId());
+                    bookingRequest.setCheckInDate(startDate);
+                    bookingRequest.setCheckOutDate(endDate);
+                    bookingRequest.setRoomsCount(1);
+                    bookingService.initialiseBooking(bookingRequest);
+                    booked.incrementAndGet();
+                } catch (IllegalStateException e) {
+                    soldOut.incrementAndGet();
+                } catch (ReservationConflictException e) {
+                    conflicts.incrementAndGet();
+                } finally {
+                    SecurityContextHolder.clearContext();
+                }
+            }));
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.MINUTES));
+        // any other exception is a bug, get() rethrows it and fails the run instead of leaving it out of the counts.
+        for (Future<?> attempt : attempts) {
+            attempt.get();
+        }
+        long millis = Math.max(1, (System.nanoTime() - start) / 1_000_000);
+
+        System.out.printf("%-16s threads=%-3d roomTypes=%-2d %6d ms %7.0f bookings/s  booked=%d soldOut=%d conflicts=%d%n",
+                mode, threads, roomTypes, millis, booked.get() * 1000.0 / millis, booked.get(), soldOut.get(),
+                conflicts.get());
+
+        Integer reservedRooms = jdbcTemplate.queryForObject(
+                "SELECT COALESCE(SUM(reserved_count), 0) FROM inventory WHERE hotel_id = ? AND date = ?",
+                Integer.class, hotel.getId(), startDate);
+        assertEquals(booked.get(), reservedRooms);
+        assertTrue(booked.get() <= roomTypes * ROOMS_PER_TYPE);
+    }
+}
@@ -0,0 +1,136 @@
+package com.example.demo.benchmark;
+
+import com.example.demo.entity.Booking;
+import com.example.demo.entity.enums.BookingStatus;
+import com.example.demo.exceptions.PaymentProviderUnavailableException;
+import com.example.demo.services.BookingService;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+//Starts the payment of many bookings at once against FakeStripeServer, which answers every call after
+//STRIPE_LATENCY_MS, and samples the active database connections meanwhile. The Stripe calls run outside of any
+//transaction, so far fewer connections than requests should be in use even though every request waits on Stripe.
+//All bookings belong to one user, so exactly one Stripe customer must be created for them.
+//Prints throughput, bulkhead rejections and the most connections and Stripe calls in use at the same time.
+//Needs a running database, run it with: mvn test -Pbenchmark
+@SpringBootTest(properties = {"stripe.checkout.max-concurrent=32", "stripe.checkout.max-wait-ms=5000"})
+@Tag("benchmark")
+class CheckoutBenchmarkTest extends InventoryBenchmarkSupport {
+
+    private static final int THREADS = 64;
+    private static final int BOOKINGS = 256;
+    private static final long STRIPE_LATENCY_MS = 300;
+
+    private static FakeStripeServer stripeServer;
+
+    @Autowired
+    private BookingService bookingService;
+    @Autowired
+    private HikariDataSource dataSource;
+
+    @DynamicPropertySource
+    static void stripeProperties(DynamicPropertyRegistry registry) {
+        try {
+            stripeServer = new FakeStripeServer(0, STRIPE_LATENCY_MS);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        registry.add("stripe.api-base", stripeServer::getApiBase);
+    }
+
+    @AfterAll
+    static void stopStripeServer() {
+        stripeServer.close();
+    }
+
+    @Test
+    void initiatePaymentsConcurrently() throws InterruptedException {
+        createHotel(1, BOOKINGS);
+        List<Booking> bookings = new ArrayList<>();
+        for (int i = 0; i < BOOKINGS; i++) {
+            bookings.add(bookingRepository.save(Booking.builder()
+                    .hotel(hotel)
+                    .room(rooms.get(0))
+                    .user(owner)
+                    .roomsCount(1)
+                    .checkInDate(LocalDate.now().plusDays(1))
+                    .checkOutDate(LocalDate.now().plusDays(2))
+                    .bookingStatus(BookingStatus.GUESTS_ADDED)
+                    .amount(BigDecimal.valueOf(1000))
+                    .build()));
+        }
+
+        AtomicInteger started = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        AtomicInteger maxActiveConnections = new AtomicInteger();
+        Thread sampler = Thread.ofVirtual().start(() -> {
+            while (!Thread.currentThread().isInterrupted()) {
+                maxActiveConnections.accumulateAndGet(dataSource.getHikariPoolMXBean().getActiveConnections(), Math::max);
+                try {
+                    Thread.sleep(5);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        });
+
+        long start = System.nanoTime();
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        for (Booking booking : bookings) {
+            executor.submit(() -> {
+                SecurityContextHolder.getContext().setAuthentication(
+                        new UsernamePasswordAuthenticationToken(owner, null, owner.getAuthorities()));
+                try {
+                    bookingService.initiatePayments(booking.getId());
+                    started.incrementAndGet();
+                } catch (PaymentProviderUnavailableException e) {
+                    rejected.incrementAndGet();
+                } finally {
+                    SecurityContextHolder.clearContext();
+                }
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.MINUTES));
+        long millis = Math.max(1, (System.nanoTime() - start) / 1_000_000);
+        sampler.interrupt();
+
+        System.out.printf("threads=%d latency=%d ms %6d ms %7.1f payments/s  started=%d rejected=%d"
+                        + "  maxActiveConnections=%d (pool %d)  maxStripeCalls=%d%n",
+                THREADS, STRIPE_LATENCY_MS, millis, started.get() * 1000.0 / millis, started.get(), rejected.get(),
+                maxActiveConnections.get(), dataSource.getMaximumPoolSize(), stripeServer.getMaxInFlight());
+
+        assertEquals(BOOKINGS, started.get() + rejected.get());
+        // every booking belongs to the same user, whose concurrent first checkouts share one customer.
+        assertEquals(1, stripeServer.getCustomersCreated());
+        long pending = bookingRepository.findByHotel(hotel).stream()
+                .filter(booking -> booking.getBookingStatus() == BookingStatus.PAYMENTS_PENDING)
+                .filter(booking -> booking.getPaymentSessionId() != null)
+                .count();
+        assertEquals(started.get(), pending);
+        assertTrue(maxActiveConnections.get() < THREADS / 2,
+                "Stripe calls should not hold database connections, but " + maxActiveConnections.get() + " were active");
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.demo.benchmark;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+//A local stand-in for the parts of the Stripe API the checkout uses (creating customers and checkout sessions), with
+//a configurable latency, so the payment flow can be load tested without network and without a Stripe account.
+//Point the application at it with stripe.api-base, or start it on its own for a load test of a running application:
+//java -cp target/test-classes com.example.demo.benchmark.FakeStripeServer 12111 300
+public class FakeStripeServer implements AutoCloseable {
+
+    private final HttpServer server;
+    private final long latencyMillis;
+    private final AtomicInteger customers = new AtomicInteger();
+    private final AtomicInteger sessions = new AtomicInteger();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger maxInFlight = new AtomicInteger();
+
+    public FakeStripeServer(int port, long latencyMillis) throws IOException {
+        this.latencyMillis = latencyMillis;
+        this.server = HttpServer.create(new InetSocketAddress("localhost", port), 0);
+        server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        server.createContext("/v1/customers", exchange -> respond(exchange, () ->
+                "{\"id\":\"cus_fake_%d\",\"object\":\"customer\"}".formatted(customers.incrementAndGet())));
+        server.createContext("/v1/checkout/sessions", exchange -> respond(exchange, () -> {
+            String id = "cs_fake_" + sessions.incrementAndGet();
+            return "{\"id\":\"%s\",\"object\":\"checkout.session\",\"url\":\"%s/pay/%s\"}".formatted(id, getApiBase(), id);
+        }));
+        server.start();
+    }
+
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 12111;
+        long latencyMillis = args.length > 1 ? Long.parseLong(args[1]) : 300;
+        FakeStripeServer server = new FakeStripeServer(port, latencyMillis);
+        System.out.println("Fake Stripe API on " + server.getApiBase() + " with " + latencyMillis + " ms latency");
+    }
+
+    public String getApiBase() {
+        return "http://localhost:" + server.getAddress().getPort();
+    }
+
+    public int getCustomersCreated() {
+        return customers.get();
+    }
+
+    public int getSessionsCreated() {
+        return sessions.get();
+    }
+
+    //the most requests that were being answered at the same time.
+    public int getMaxInFlight() {
+        return maxInFlight.get();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+
+    private void respond(HttpExchange exchange, Supplier<String> body) throws IOException {
+        maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+        try (exchange) {
+            exchange.getRequestBody().readAllBytes();
+            if (!"POST".equals(exchange.getRequestMethod())) {
+                send(exchange, 405, "{\"error\":{\"type\":\"invalid_request_error\",\"message\":\"Only POST is supported\"}}");
+                return;
+            }
+            Thread.sleep(latencyMillis);
+            send(exchange, 200, body.get());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            inFlight.decrementAndGet();
+        }
+    }
+
+    private static void send(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
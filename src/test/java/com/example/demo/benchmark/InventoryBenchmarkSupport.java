@@ -0,0 +1,82 @@
+package com.example.demo.benchmark;
+
+import com.example.demo.entity.Hotel;
+import com.example.demo.entity.Room;
+import com.example.demo.entity.User;
+import com.example.demo.entity.enums.Role;
+import com.example.demo.repositories.BookingRepository;
+import com.example.demo.repositories.HotelRepository;
+import com.example.demo.repositories.InventoryRepository;
+import com.example.demo.repositories.RoomRepository;
+import com.example.demo.repositories.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+//Creates a throw-away owner, hotel and room types for a benchmark and removes them, with their bookings and
+//inventory, afterwards.
+abstract class InventoryBenchmarkSupport {
+
+    @Autowired
+    protected InventoryRepository inventoryRepository;
+    @Autowired
+    protected HotelRepository hotelRepository;
+    @Autowired
+    protected RoomRepository roomRepository;
+    @Autowired
+    protected UserRepository userRepository;
+    @Autowired
+    protected BookingRepository bookingRepository;
+    @Autowired
+    protected TransactionTemplate transactionTemplate;
+
+    protected User owner;
+    protected Hotel hotel;
+    protected final List<Room> rooms = new ArrayList<>();
+
+    protected void createHotel(int roomTypes, int roomsPerType) {
+        owner = new User();
+        owner.setEmail("benchmark-" + UUID.randomUUID() + "@example.com");
+        owner.setPassword("benchmark");
+        owner.setRoles(Set.of(Role.GUEST, Role.HOTEL_MANAGER));
+        owner = userRepository.save(owner);
+
+        hotel = new Hotel();
+        hotel.setName("Benchmark hotel");
+        hotel.setCity("Benchmark city");
+        hotel.setActive(false);
+        hotel.setOwner(owner);
+        hotel = hotelRepository.save(hotel);
+
+        for (int i = 0; i < roomTypes; i++) {
+            Room room = new Room();
+            room.setHotel(hotel);
+            room.setType("type-" + i);
+            room.setBasePrice(BigDecimal.valueOf(100 + i));
+            room.setTotalCount(roomsPerType);
+            room.setCapacity(2);
+            rooms.add(roomRepository.save(room));
+        }
+    }
+
+    @AfterEach
+    void deleteHotel() {
+        bookingRepository.deleteAll(bookingRepository.findByHotel(hotel));
+        transactionTemplate.executeWithoutResult(status -> rooms.forEach(inventoryRepository::deleteByRoom));
+        roomRepository.deleteAll(rooms);
+        hotelRepository.delete(hotel);
+        userRepository.delete(owner);
+    }
+
+    protected static long time(Runnable runnable) {
+        long start = System.nanoTime();
+        runnable.run();
+        return (System.nanoTime() - start) / 1_000_000;
+    }
+}
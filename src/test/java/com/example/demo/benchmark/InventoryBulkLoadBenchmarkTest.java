@@ -0,0 +1,76 @@
+package com.example.demo.benchmark;
+
+import com.example.demo.entity.Inventory;
+import com.example.demo.entity.Room;
+import com.example.demo.services.InventoryService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+//Compares the old one-save-per-day inventory creation with the set based bulk insert, for a hotel with ROOM_TYPES rooms.
+//Needs a running database, run it with: mvn test -Pbenchmark
+@SpringBootTest
+@Tag("benchmark")
+class InventoryBulkLoadBenchmarkTest extends InventoryBenchmarkSupport {
+
+    private static final int ROOM_TYPES = 30;
+    private static final int ROOMS_PER_TYPE = 10;
+
+    @Autowired
+    private InventoryService inventoryService;
+
+    @BeforeEach
+    void setUp() {
+        createHotel(ROOM_TYPES, ROOMS_PER_TYPE);
+    }
+
+    @Test
+    void compareSaveLoopWithBulkInsert() {
+        long loopMillis = time(() -> rooms.forEach(this::initializeRoomWithSaveLoop));
+        long loopRows = countInventory();
+        transactionTemplate.executeWithoutResult(status -> rooms.forEach(inventoryRepository::deleteByRoom));
+
+        long bulkMillis = time(() -> transactionTemplate.executeWithoutResult(status ->
+                rooms.forEach(inventoryService::initializeRoomForAYear)));
+        long bulkRows = countInventory();
+
+        System.out.printf("Inventory for %d room types: save loop %d rows in %d ms, bulk insert %d rows in %d ms%n",
+                ROOM_TYPES, loopRows, loopMillis, bulkRows, bulkMillis);
+        assertEquals(loopRows, bulkRows);
+    }
+
+    //the implementation initializeRoomForAYear had before the bulk insert.
+    private void initializeRoomWithSaveLoop(Room room) {
+        transactionTemplate.executeWithoutResult(status -> {
+            LocalDate today = LocalDate.now();
+            LocalDate endDate = today.plusDays(365); // same number of days as the default horizon
+            for (; !today.isAfter(endDate); today = today.plusDays(1)) {
+                Inventory inventory = Inventory.builder()
+                        .hotel(room.getHotel())
+                        .room(room)
+                        .bookedCount(0)
+                        .reservedCount(0)
+                        .city(room.getHotel().getCity())
+                        .date(today)
+                        .price(room.getBasePrice())
+                        .surgeFactor(BigDecimal.ONE)
+                        .totalCount(room.getTotalCount())
+                        .closed(false)
+                        .build();
+                inventoryRepository.save(inventory);
+            }
+        });
+    }
+
+    private long countInventory() {
+        return transactionTemplate.execute(status ->
+                (long) inventoryRepository.findByHotelAndDateBetween(hotel, LocalDate.now(), LocalDate.now().plusDays(365)).size());
+    }
+}
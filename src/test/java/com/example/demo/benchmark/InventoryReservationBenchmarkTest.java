@@ -0,0 +1,104 @@
+package com.example.demo.benchmark;
+
+import com.example.demo.entity.Room;
+import com.example.demo.entity.enums.ReservationMode;
+import com.example.demo.exceptions.ReservationConflictException;
+import com.example.demo.services.InventoryReservationService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+//Flash sale on a single room type: THREADS threads keep trying to reserve one room for the same STAY_DAYS days
+//until ATTEMPTS reservations have been tried. Prints the time each reservation mode needs and checks that exactly
+//ROOMS rooms were reserved, no more, no less. OPTIMISTIC runs reserve without the retry loop of the booking, so its
+//version conflicts are counted separately; they may leave rooms free but never reserve too many.
+//Needs a running database, run it with: mvn test -Pbenchmark
+@SpringBootTest
+@Tag("benchmark")
+class InventoryReservationBenchmarkTest extends InventoryBenchmarkSupport {
+
+    private static final int ROOMS = 200;
+    private static final int ATTEMPTS = 1000;
+    private static final int THREADS = 8;
+    private static final int STAY_DAYS = 3;
+
+    @Autowired
+    private InventoryReservationService inventoryReservationService;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Room room;
+
+    @BeforeEach
+    void setUp() {
+        createHotel(1, ROOMS);
+        room = rooms.get(0);
+        inventoryRepository.bulkInsertInventory(hotel.getId(), room.getId(), hotel.getCity(), ROOMS,
+                BigDecimal.valueOf(100), LocalDate.now(), LocalDate.now().plusDays(STAY_DAYS));
+    }
+
+    @ParameterizedTest
+    @EnumSource(ReservationMode.class)
+    void reserveUnderContention(ReservationMode mode) throws Exception {
+        LocalDate startDate = LocalDate.now().plusDays(1);
+        LocalDate endDate = startDate.plusDays(STAY_DAYS - 1);
+        AtomicInteger reserved = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        AtomicInteger conflicts = new AtomicInteger();
+
+        long start = System.nanoTime();
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> attempts = new ArrayList<>(ATTEMPTS);
+        for (int i = 0; i < ATTEMPTS; i++) {
+            attempts.add(executor.submit(() -> {
+                try {
+                    transactionTemplate.executeWithoutResult(status ->
+                            inventoryReservationService.reserve(mode, room.getId(), startDate, endDate, 1));
+                    reserved.incrementAndGet();
+                } catch (IllegalStateException e) {
+                    rejected.incrementAndGet();
+                } catch (ReservationConflictException e) {
+                    if (mode != ReservationMode.OPTIMISTIC) throw e;
+                    conflicts.incrementAndGet();
+                }
+            }));
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(5, TimeUnit.MINUTES));
+        // any other exception is a bug, get() rethrows it and fails the run instead of leaving it out of the counts.
+        for (Future<?> attempt : attempts) {
+            attempt.get();
+        }
+        long millis = (System.nanoTime() - start) / 1_000_000;
+
+        System.out.printf("%s: %d attempts on %d threads in %d ms (%.0f/s), %d reserved, %d rejected, %d conflicts%n",
+                mode, ATTEMPTS, THREADS, millis, ATTEMPTS * 1000.0 / millis, reserved.get(), rejected.get(),
+                conflicts.get());
+
+        Integer maxReserved = jdbcTemplate.queryForObject(
+                "SELECT MAX(reserved_count) FROM inventory WHERE room_id = ?", Integer.class, room.getId());
+        assertEquals(reserved.get(), maxReserved);
+        if (conflicts.get() == 0) {
+            assertEquals(ROOMS, reserved.get());
+        } else {
+            assertTrue(reserved.get() <= ROOMS);
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.example.demo.benchmark;
+
+import com.example.demo.entity.Hotel;
+import com.example.demo.entity.Inventory;
+import com.example.demo.entity.Room;
+import com.example.demo.strategy.*;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+//Compares the bytes allocated to price one pricing run of a hotel (ROOM_TYPES x DAYS inventory rows) with the old
+//decorator chain, which was rebuilt for every row, and with the pipeline built once by PricingStrategyRegistry.
+//Both have to produce the same prices. No database needed, run it with: mvn test -Pbenchmark
+@Tag("benchmark")
+class PricingAllocationBenchmarkTest {
+
+    private static final int ROOM_TYPES = 30;
+    private static final int DAYS = 366;
+    private static final int WARMUP_RUNS = 20;
+    private static final int MEASURED_RUNS = 20;
+
+    @Test
+    void compareDecoratorChainWithPipeline() {
+        List<Inventory> inventoryList = createInventory();
+        PricingPipeline pipeline = new PricingStrategyRegistry(
+                List.of(new BasePricingStrategy(), new SurgePricingStrategy(), new OccupancyPricingStrategy(),
+                        new UrgencyPricingStrategy(), new HolidayPricingStrategy((city, date) -> true)),
+                new MockEnvironment(), List.of("base", "surge", "occupancy", "urgency", "holiday")).getPipeline();
+
+        assertEquals(priceWithDecorators(inventoryList), pipeline.price(inventoryList));
+
+        long decoratorBytes = allocatedBytesPerRun(inventoryList, PricingAllocationBenchmarkTest::priceWithDecorators);
+        long pipelineBytes = allocatedBytesPerRun(inventoryList, pipeline::price);
+
+        System.out.printf("Pricing %d inventory rows: decorator chain %,d bytes per run, pipeline %,d bytes per run (%.1f%%)%n",
+                inventoryList.size(), decoratorBytes, pipelineBytes, pipelineBytes * 100.0 / decoratorBytes);
+    }
+
+    private static long allocatedBytesPerRun(List<Inventory> inventoryList,
+                                             Function<List<Inventory>, List<BigDecimal>> pricing) {
+        com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().threadId();
+
+        for (int i = 0; i < WARMUP_RUNS; i++) pricing.apply(inventoryList);
+
+        long before = threadBean.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < MEASURED_RUNS; i++) pricing.apply(inventoryList);
+        return (threadBean.getThreadAllocatedBytes(threadId) - before) / MEASURED_RUNS;
+    }
+
+    private static List<Inventory> createInventory() {
+        Hotel hotel = new Hotel();
+        hotel.setCity("Benchmark city");
+        List<Inventory> inventoryList = new ArrayList<>();
+        for (int r = 0; r < ROOM_TYPES; r++) {
+            Room room = new Room();
+            room.setHotel(hotel);
+            room.setBasePrice(BigDecimal.valueOf(100 + r));
+            room.setTotalCount(10);
+            for (int d = 0; d < DAYS; d++) {
+                inventoryList.add(Inventory.builder()
+                        .hotel(hotel)
+                        .room(room)
+                        .date(LocalDate.now().plusDays(d))
+                        .bookedCount(d % 11)
+                        .reservedCount(0)
+                        .totalCount(10)
+                        .surgeFactor(BigDecimal.valueOf(1 + (d % 3) / 10.0))
+                        .price(room.getBasePrice())
+                        .city(hotel.getCity())
+                        .closed(false)
+                        .build());
+            }
+        }
+        return inventoryList;
+    }
+
+    //How PricingService priced a row before the registry: a fresh base strategy and four decorators per row.
+    private static List<BigDecimal> priceWithDecorators(List<Inventory> inventoryList) {
+        List<BigDecimal> prices = new ArrayList<>(inventoryList.size());
+        for (Inventory inventory : inventoryList) {
+            LegacyStrategy strategy = new LegacyStrategy(null, (row, price) -> row.getRoom().getBasePrice());
+            strategy = new LegacyStrategy(strategy, new SurgePricingStrategy()::calculatePrice);
+            strategy = new LegacyStrategy(strategy, new OccupancyPricingStrategy()::calculatePrice);
+            strategy = new LegacyStrategy(strategy, new UrgencyPricingStrategy()::calculatePrice);
+            strategy = new LegacyStrategy(strategy, new HolidayPricingStrategy((city, date) -> true)::calculatePrice);
+            prices.add(strategy.calculatePrice(inventory));
+        }
+        return prices;
+    }
+
+    private record LegacyStrategy(LegacyStrategy wrapped, Step step) {
+
+        BigDecimal calculatePrice(Inventory inventory) {
+            BigDecimal price = wrapped == null ? BigDecimal.ZERO : wrapped.calculatePrice(inventory);
+            return step.apply(inventory, price);
+        }
+    }
+
+    private interface Step {
+        BigDecimal apply(Inventory inventory, BigDecimal price);
+    }
+}
@@ -0,0 +1,202 @@
+package com.example.demo.services;
+
+import com.example.demo.entity.*;
+import com.example.demo.entity.enums.Role;
+import com.example.demo.repositories.*;
+import com.example.demo.strategy.PricingService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+//Prices a hotel with the set-based SQL repricing and checks every inventory and HotelMinPrice row against the Java
+//pricing pipeline used by the entity path. The inventory covers the urgency window, a holiday, high occupancy,
+//surge factors, closed and sold out days.
+//Needs a running database, run it with: mvn test -Pdatabase
+@SpringBootTest
+@Tag("database")
+class SqlRepricingCrossCheckTest {
+
+    private static final int DAYS = 30;
+    private static final String CITY = "Cross-check city";
+
+    @Autowired
+    private SqlRepricingService sqlRepricingService;
+    @Autowired
+    private PricingService pricingService;
+    @Autowired
+    private HolidayCalendarService holidayCalendarService;
+    @Autowired
+    private InventoryRepository inventoryRepository;
+    @Autowired
+    private HotelMinPriceRepository hotelMinPriceRepository;
+    @Autowired
+    private HolidayRepository holidayRepository;
+    @Autowired
+    private HotelRepository hotelRepository;
+    @Autowired
+    private RoomRepository roomRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private final LocalDate today = LocalDate.now();
+    private final List<Room> rooms = new ArrayList<>();
+    private User owner;
+    private Hotel hotel;
+    private Holiday holiday;
+
+    @BeforeEach
+    void createHotel() {
+        owner = new User();
+        owner.setEmail("cross-check-" + UUID.randomUUID() + "@example.com");
+        owner.setPassword("cross-check");
+        owner.setRoles(Set.of(Role.GUEST, Role.HOTEL_MANAGER));
+        owner = userRepository.save(owner);
+
+        hotel = new Hotel();
+        hotel.setName("Cross-check hotel");
+        hotel.setCity(CITY);
+        hotel.setActive(true);
+        hotel.setOwner(owner);
+        hotel = hotelRepository.save(hotel);
+
+        // prices whose products need rounding to paise.
+        for (BigDecimal basePrice : List.of(new BigDecimal("99.99"), new BigDecimal("1234.57"), new BigDecimal("100.05"))) {
+            Room room = new Room();
+            room.setHotel(hotel);
+            room.setType("type-" + basePrice);
+            room.setBasePrice(basePrice);
+            room.setTotalCount(10);
+            room.setCapacity(2);
+            room = roomRepository.save(room);
+            rooms.add(room);
+            inventoryRepository.bulkInsertInventory(hotel.getId(), room.getId(), CITY, 10, basePrice, today,
+                    today.plusDays(DAYS - 1));
+        }
+
+        holiday = new Holiday();
+        holiday.setCity(CITY.toUpperCase()); // the calendar ignores the case of cities.
+        holiday.setDate(today.plusDays(3));
+        holiday.setName("Cross-check day");
+        holiday = holidayRepository.save(holiday);
+        holidayCalendarService.reload();
+
+        Random random = new Random(7);
+        transactionTemplate.executeWithoutResult(status -> {
+            for (Inventory inventory : findInventory()) {
+                inventory.setSurgeFactor(new BigDecimal(List.of("1.00", "1.37", "0.85", "2.13").get(random.nextInt(4))));
+                inventory.setBookedCount(random.nextInt(11));
+                inventory.setClosed(random.nextInt(10) == 0);
+                inventory.setPrice(BigDecimal.ONE);
+            }
+        });
+    }
+
+    @AfterEach
+    void deleteHotel() {
+        transactionTemplate.executeWithoutResult(status -> {
+            hotelMinPriceRepository.deleteAll(hotelMinPriceRepository.findByHotelAndDateBetween(hotel, today,
+                    today.plusDays(DAYS)));
+            rooms.forEach(inventoryRepository::deleteByRoom);
+        });
+        roomRepository.deleteAll(rooms);
+        hotelRepository.delete(hotel);
+        userRepository.delete(owner);
+        holidayRepository.delete(holiday);
+        holidayCalendarService.reload();
+    }
+
+    @Test
+    void sqlRepricingMatchesThePricingPipeline() {
+        assertTrue(sqlRepricingService.isAvailable());
+        Map<Long, BigDecimal> expectedPrices = priceInJava();
+
+        transactionTemplate.executeWithoutResult(status ->
+                sqlRepricingService.repriceHotel(hotel, today, today.plusDays(DAYS), false));
+
+        assertPrices(expectedPrices);
+        assertHotelMinPrices();
+    }
+
+    @Test
+    void dirtyOnlyRepricingLeavesCleanRowsAlone() {
+        transactionTemplate.executeWithoutResult(status ->
+                sqlRepricingService.repriceHotel(hotel, today, today.plusDays(DAYS), false));
+
+        Inventory changed = transactionTemplate.execute(status -> {
+            Inventory inventory = findInventory().get(DAYS + 5);
+            inventory.setSurgeFactor(new BigDecimal("3.00"));
+            inventory.setPriceDirty(true);
+            return inventory;
+        });
+        Map<Long, BigDecimal> expectedPrices = priceInJava();
+
+        Integer repriced = transactionTemplate.execute(status ->
+                sqlRepricingService.repriceHotel(hotel, today, today.plusDays(DAYS), true));
+
+        assertEquals(1, repriced);
+        assertPrices(expectedPrices);
+        assertHotelMinPrices();
+        assertFalse(inventoryRepository.findById(changed.getId()).orElseThrow().getPriceDirty());
+    }
+
+    private Map<Long, BigDecimal> priceInJava() {
+        return transactionTemplate.execute(status -> {
+            List<Inventory> inventoryList = findInventory();
+            List<BigDecimal> prices = pricingService.calculateDynamicPricing(inventoryList);
+            Map<Long, BigDecimal> pricesById = new HashMap<>();
+            for (int i = 0; i < inventoryList.size(); i++) {
+                // what the numeric(10, 2) column keeps of the price saved by the entity path.
+                pricesById.put(inventoryList.get(i).getId(), prices.get(i).setScale(2, RoundingMode.HALF_UP));
+            }
+            return pricesById;
+        });
+    }
+
+    private void assertPrices(Map<Long, BigDecimal> expectedPrices) {
+        List<Inventory> inventoryList = transactionTemplate.execute(status -> findInventory());
+        assertEquals(rooms.size() * DAYS, inventoryList.size());
+        for (Inventory inventory : inventoryList) {
+            assertEquals(0, expectedPrices.get(inventory.getId()).compareTo(inventory.getPrice()),
+                    "price of room " + inventory.getRoom().getId() + " on " + inventory.getDate());
+        }
+    }
+
+    private void assertHotelMinPrices() {
+        transactionTemplate.executeWithoutResult(status -> {
+            Map<LocalDate, List<Inventory>> inventoryByDate = findInventory().stream()
+                    .collect(Collectors.groupingBy(Inventory::getDate));
+            List<HotelMinPrice> hotelPrices = hotelMinPriceRepository.findByHotelAndDateBetween(hotel, today,
+                    today.plusDays(DAYS));
+            assertEquals(DAYS, hotelPrices.size());
+            for (HotelMinPrice hotelPrice : hotelPrices) {
+                List<Inventory> dayInventory = inventoryByDate.get(hotelPrice.getDate());
+                assertEquals(0, HotelMinPriceService.minPrice(dayInventory).compareTo(hotelPrice.getPrice()),
+                        "min price on " + hotelPrice.getDate());
+                assertEquals(HotelMinPriceService.maxFreeRooms(dayInventory), hotelPrice.getAvailableRooms(),
+                        "free rooms on " + hotelPrice.getDate());
+            }
+        });
+    }
+
+    private List<Inventory> findInventory() {
+        List<Inventory> inventoryList = new ArrayList<>(inventoryRepository.findByHotelAndDateBetween(hotel, today,
+                today.plusDays(DAYS)));
+        inventoryList.sort(Comparator.comparing((Inventory inventory) -> inventory.getRoom().getId())
+                .thenComparing(Inventory::getDate));
+        return inventoryList;
+    }
+}
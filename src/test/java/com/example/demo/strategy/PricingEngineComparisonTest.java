@@ -0,0 +1,115 @@
+package com.example.demo.strategy;
+
+import com.example.demo.entity.Inventory;
+import com.example.demo.entity.Room;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+//Property: for any inventory row the FIXED_POINT engine gives the price the BIG_DECIMAL engine gives once it is
+//rounded into a scale 2 column, and the exact totals of any list of rows are equal.
+//Inputs are random (fixed seed, so failures reproduce) over the whole range of the columns, plus rounding edge cases.
+class PricingEngineComparisonTest {
+
+    private static final int CASES = 100_000;
+
+    private final PricingPipeline pipeline = new PricingStrategyRegistry(
+            List.of(new BasePricingStrategy(), new SurgePricingStrategy(), new OccupancyPricingStrategy(),
+                    new UrgencyPricingStrategy(), new HolidayPricingStrategy((city, date) -> true)),
+            new MockEnvironment(), List.of("base", "surge", "occupancy", "urgency", "holiday")).getPipeline();
+
+    @Test
+    void fixedPointPriceMatchesRoundedBigDecimalPrice() {
+        Random random = new Random(20240101L);
+        for (int i = 0; i < CASES; i++) {
+            Inventory inventory = randomInventory(random);
+            assertSamePrice(inventory);
+        }
+    }
+
+    @Test
+    void fixedPointTotalMatchesBigDecimalTotal() {
+        Random random = new Random(42L);
+        for (int i = 0; i < CASES / 100; i++) {
+            List<Inventory> inventoryList = new ArrayList<>();
+            int days = 1 + random.nextInt(30);
+            for (int d = 0; d < days; d++) {
+                inventoryList.add(randomInventory(random));
+            }
+            assertEquals(0, pipeline.totalPrice(inventoryList).compareTo(pipeline.totalPriceInFixedPoint(inventoryList)),
+                    () -> "total of " + inventoryList.size() + " rows");
+        }
+    }
+
+    @Test
+    void roundingEdgeCases() {
+        // prices whose exact value ends in a half paisa, and the largest values the columns can hold.
+        for (String basePrice : new String[]{"0.01", "0.02", "0.10", "1.00", "10.01", "99.99", "0.03", "12345678.91",
+                "99999999.99"}) {
+            for (String surgeFactor : new String[]{"0.01", "0.50", "1.00", "1.01", "1.99", "999.99"}) {
+                for (int bookedCount : new int[]{0, 9}) {
+                    for (int dayOffset : new int[]{-1, 0, 6, 7}) {
+                        assertSamePrice(inventory(new BigDecimal(basePrice), new BigDecimal(surgeFactor), bookedCount,
+                                10, LocalDate.now().plusDays(dayOffset)));
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    void fixedPointPriceArithmetic() {
+        long price = FixedPointPrice.multiply(FixedPointPrice.of(new BigDecimal("100.10")), 115, 2);
+        assertEquals(115_115_000_000L, price);
+        assertEquals(11512, FixedPointPrice.toMinorUnits(price)); // 115.115 rounds HALF_UP
+        assertEquals(-11512, FixedPointPrice.toMinorUnits(-price));
+        assertEquals(11511, FixedPointPrice.toMinorUnits(115_114_999_999L));
+        assertEquals(new BigDecimal("115.12"), FixedPointPrice.toPrice(price));
+        assertEquals(FixedPointPrice.NOT_REPRESENTABLE, FixedPointPrice.multiply(1, 1, 2)); // would need scale 11
+        assertEquals(FixedPointPrice.NOT_REPRESENTABLE, FixedPointPrice.multiply(Long.MAX_VALUE / 2, 3, 0));
+        assertEquals(FixedPointPrice.NOT_REPRESENTABLE, FixedPointPrice.add(Long.MAX_VALUE - 1, 2));
+        assertEquals(FixedPointPrice.NOT_REPRESENTABLE, FixedPointPrice.of(new BigDecimal("0.0000000001")));
+    }
+
+    private void assertSamePrice(Inventory inventory) {
+        BigDecimal expected = pipeline.price(inventory).setScale(2, RoundingMode.HALF_UP);
+        BigDecimal actual = pipeline.priceInFixedPoint(inventory);
+        assertEquals(expected, actual, () -> "base " + inventory.getRoom().getBasePrice() + ", surge "
+                + inventory.getSurgeFactor() + ", booked " + inventory.getBookedCount() + "/" + inventory.getTotalCount()
+                + ", date " + inventory.getDate());
+    }
+
+    private static Inventory randomInventory(Random random) {
+        // mostly realistic prices, sometimes anything up to the column limit.
+        long basePaise = random.nextInt(10) == 0 ? (long) (random.nextDouble() * 9_999_999_999L) : 100 + random.nextInt(5_000_000);
+        long surgeHundredths = random.nextInt(10) == 0 ? random.nextInt(99_999) + 1 : 50 + random.nextInt(250);
+        int totalCount = 1 + random.nextInt(200);
+        return inventory(BigDecimal.valueOf(basePaise, 2), BigDecimal.valueOf(surgeHundredths, 2),
+                random.nextInt(totalCount + 1), totalCount, LocalDate.now().plusDays(random.nextInt(20) - 2));
+    }
+
+    private static Inventory inventory(BigDecimal basePrice, BigDecimal surgeFactor, int bookedCount, int totalCount,
+                                       LocalDate date) {
+        Room room = new Room();
+        room.setBasePrice(basePrice);
+        room.setTotalCount(totalCount);
+        return Inventory.builder()
+                .room(room)
+                .date(date)
+                .bookedCount(bookedCount)
+                .reservedCount(0)
+                .totalCount(totalCount)
+                .surgeFactor(surgeFactor)
+                .price(basePrice)
+                .closed(false)
+                .build();
+    }
+}